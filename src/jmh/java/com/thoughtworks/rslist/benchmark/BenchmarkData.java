@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkData {
+  private BenchmarkData() {}
+
+  static UserDto user(int id) {
+    return UserDto.builder()
+        .id(id)
+        .userName("bench")
+        .gender("female")
+        .age(20)
+        .email("a@b.com")
+        .phone("18888888888")
+        .voteNum(Integer.MAX_VALUE)
+        .build();
+  }
+
+  // Bought events take every (1 / boughtDensity)-th rank, the rest get random vote counts.
+  static List<RsEventDto> events(int count, double boughtDensity, UserDto user) {
+    Random random = new Random(42);
+    int bought = (int) (count * boughtDensity);
+    int step = bought == 0 ? 0 : count / bought;
+    List<RsEventDto> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      events.add(
+          RsEventDto.builder()
+              .id(i + 1)
+              .eventName("event " + i)
+              .keyword("keyword")
+              .voteNum(random.nextInt(10_000))
+              .boughtRank(i < bought ? 1 + i * step : 0)
+              .user(user)
+              .build());
+    }
+    return events;
+  }
+}
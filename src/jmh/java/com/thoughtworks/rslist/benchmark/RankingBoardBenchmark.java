@@ -0,0 +1,71 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.ranking.RankOrder;
+import com.thoughtworks.rslist.ranking.RankingBoard;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * The in-memory part of a /rs/list request. Run with the gc profiler (enabled in the jmh block) and
+ * read gc.alloc.rate.norm: bytes allocated per call, which for a page should not grow with events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RankingBoardBenchmark {
+  @Param({"1000", "10000", "100000"})
+  int events;
+
+  @Param({"0", "0.01", "0.1"})
+  double boughtDensity;
+
+  RankingBoard rankingBoard;
+
+  @Setup
+  public void setUp() {
+    List<RsEventDto> all = BenchmarkData.events(events, boughtDensity, BenchmarkData.user(1));
+    Random random = new Random(7);
+    all.forEach(item -> item.setHeat(random.nextDouble() * 100));
+    RsEventRepository rsEventRepository = mock(RsEventRepository.class, withSettings().stubOnly());
+    when(rsEventRepository.findAllByIsDeletedEquals(0)).thenReturn(all);
+    rankingBoard = new RankingBoard(rsEventRepository);
+    rankingBoard.size();
+  }
+
+  @Benchmark
+  public List<RsEvent> list() {
+    return rankingBoard.list();
+  }
+
+  @Benchmark
+  public List<RsEvent> firstPage() {
+    return rankingBoard.page(1, 20);
+  }
+
+  @Benchmark
+  public List<RsEvent> middlePage() {
+    return rankingBoard.page(events / 2, events / 2 + 19);
+  }
+
+  @Benchmark
+  public List<RsEvent> middlePageByHeat() {
+    return rankingBoard.page(RankOrder.HEAT, events / 2, events / 2 + 19);
+  }
+}
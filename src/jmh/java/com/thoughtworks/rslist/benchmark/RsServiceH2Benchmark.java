@@ -0,0 +1,111 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.ranking.RankingBoard;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.RsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** RsService hot paths against an embedded H2 database, including JPA and transaction overhead. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RsServiceH2Benchmark {
+  @Param({"1000", "10000", "100000"})
+  int events;
+
+  @Param({"0", "0.01"})
+  double boughtDensity;
+
+  ConfigurableApplicationContext context;
+  RsService rsService;
+  RankingBoard rankingBoard;
+  int userId;
+  int rsEventId;
+  int rank;
+  double amount;
+
+  @Setup
+  public void setUp() {
+    context =
+        new SpringApplicationBuilder(RsListApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:rsbench;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.flyway.enabled=false",
+                "rslist.list-cache.enabled=false")
+            .run();
+    rsService = context.getBean(RsService.class);
+    rankingBoard = context.getBean(RankingBoard.class);
+
+    UserDto user = BenchmarkData.user(0);
+    user = context.getBean(UserRepository.class).save(user);
+    List<RsEventDto> seed = BenchmarkData.events(events, boughtDensity, user);
+    for (RsEventDto rsEventDto : seed) {
+      rsEventDto.setId(0);
+    }
+    for (RsEventDto rsEventDto : context.getBean(RsEventRepository.class).saveAll(seed)) {
+      rsEventId = rsEventDto.getId();
+    }
+    userId = user.getId();
+    rankingBoard.size();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<RsEvent> getList() {
+    return rsService.getList();
+  }
+
+  @Benchmark
+  public List<RsEvent> getListPageFromBoard() {
+    return rsService.getList(events / 2, events / 2 + 19);
+  }
+
+  @Benchmark
+  public List<RsEvent> getListPageFromRepository() {
+    rankingBoard.invalidate();
+    return rsService.getList(events / 2, events / 2 + 19);
+  }
+
+  @Benchmark
+  public void vote() {
+    rsService.vote(Vote.builder().userId(userId).voteNum(1).time(LocalDateTime.now()).build(), rsEventId);
+  }
+
+  @Benchmark
+  public void buy() {
+    rank = rank % 10 + 1;
+    amount += 1;
+    rsService.buy(Trade.builder().rank(rank).amount(amount).build(), rsEventId);
+  }
+}
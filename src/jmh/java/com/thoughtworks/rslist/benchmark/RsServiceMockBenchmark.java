@@ -0,0 +1,155 @@
+package com.thoughtworks.rslist.benchmark;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.ranking.RankedListCache;
+import com.thoughtworks.rslist.ranking.RankingBoard;
+import com.thoughtworks.rslist.ranking.TrendingCounters;
+import com.thoughtworks.rslist.repository.RankHolderRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.BidBook;
+import com.thoughtworks.rslist.service.RsService;
+import com.thoughtworks.rslist.service.StripedLocks;
+import com.thoughtworks.rslist.service.VotePipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/** RsService hot paths over stub-only repositories: isolates the in-process cost from the database. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RsServiceMockBenchmark {
+  @Param({"1000", "10000", "100000"})
+  int events;
+
+  @Param({"0", "0.01", "0.1"})
+  double boughtDensity;
+
+  RsService rsService;
+  RankingBoard rankingBoard;
+  int rank;
+  double amount;
+
+  @Setup
+  public void setUp() {
+    UserDto user = BenchmarkData.user(1);
+    List<RsEventDto> all = BenchmarkData.events(events, boughtDensity, user);
+    List<RsEventDto> unbought =
+        all.stream()
+            .filter(item -> item.getBoughtRank() == 0)
+            .sorted(Comparator.comparingInt(RsEventDto::getVoteNum).reversed().thenComparingInt(RsEventDto::getId))
+            .collect(Collectors.toList());
+    List<RsEventDto> bought = all.stream().filter(item -> item.getBoughtRank() > 0).collect(Collectors.toList());
+
+    RsEventRepository rsEventRepository = stub(RsEventRepository.class);
+    UserRepository userRepository = stub(UserRepository.class);
+    VoteRepository voteRepository = stub(VoteRepository.class);
+    TradeRepository tradeRepository = stub(TradeRepository.class);
+    RankHolderRepository rankHolderRepository = stub(RankHolderRepository.class);
+    PlatformTransactionManager transactionManager = stub(PlatformTransactionManager.class);
+
+    when(rsEventRepository.findAllByIsDeletedEquals(0)).thenReturn(all);
+    when(rsEventRepository.findBoughtRanks())
+        .thenReturn(bought.stream().map(RsEventDto::getBoughtRank).collect(Collectors.toList()));
+    when(rsEventRepository.countByIsDeletedEqualsAndBoughtRankEquals(0, 0)).thenReturn((long) unbought.size());
+    when(rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankIn(eq(0), any()))
+        .thenAnswer(
+            invocation -> {
+              Collection<Integer> ranks = invocation.getArgument(1);
+              return bought.stream().filter(item -> ranks.contains(item.getBoughtRank())).collect(Collectors.toList());
+            });
+    when(rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(eq(0), eq(0), any()))
+        .thenAnswer(
+            invocation -> {
+              Pageable pageable = invocation.getArgument(2);
+              int from = (int) Math.min(pageable.getOffset(), unbought.size());
+              return unbought.subList(from, Math.min(from + pageable.getPageSize(), unbought.size()));
+            });
+    when(rsEventRepository.findById(anyInt())).thenReturn(Optional.of(unbought.get(0)));
+    when(userRepository.findById(anyInt())).thenReturn(Optional.of(user));
+    when(rankHolderRepository.findById(anyInt())).thenReturn(Optional.empty());
+
+    StripedLocks stripedLocks = new StripedLocks(64);
+    rankingBoard = new RankingBoard(rsEventRepository);
+    VotePipeline votePipeline = stub(VotePipeline.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    rsService =
+        new RsService(
+            rsEventRepository,
+            userRepository,
+            voteRepository,
+            tradeRepository,
+            rankingBoard,
+            new RankedListCache(rankingBoard, meterRegistry, false, 0),
+            new TrendingCounters(60, 60),
+            votePipeline,
+            stripedLocks,
+            new BidBook(
+                rsEventRepository, tradeRepository, rankHolderRepository, stripedLocks, transactionManager, meterRegistry, 1000),
+            transactionManager,
+            meterRegistry);
+    rankingBoard.size();
+  }
+
+  @Benchmark
+  public List<RsEvent> getList() {
+    return rsService.getList();
+  }
+
+  @Benchmark
+  public List<RsEvent> getListPageFromBoard() {
+    return rsService.getList(events / 2, events / 2 + 19);
+  }
+
+  @Benchmark
+  public List<RsEvent> getListPageFromRepository() {
+    rankingBoard.invalidate();
+    return rsService.getList(events / 2, events / 2 + 19);
+  }
+
+  @Benchmark
+  public void vote() {
+    rsService.vote(Vote.builder().userId(1).voteNum(1).time(LocalDateTime.now()).build(), 1);
+  }
+
+  @Benchmark
+  public void buy() {
+    rank = rank % 10 + 1;
+    amount += 1;
+    rsService.buy(Trade.builder().rank(rank).amount(amount).build(), 1);
+  }
+
+  private static <T> T stub(Class<T> type) {
+    return mock(type, withSettings().stubOnly());
+  }
+}
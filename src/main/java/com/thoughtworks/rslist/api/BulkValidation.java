@@ -0,0 +1,25 @@
+package com.thoughtworks.rslist.api;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Set;
+
+/** Per-item bean validation for bulk endpoints, where one bad item must not reject the request. */
+final class BulkValidation {
+  static final int MAX_ITEMS = 10_000;
+
+  private BulkValidation() {}
+
+  // Returns the first violation as "property message", or null when the item is valid.
+  static String firstViolation(Validator validator, Object item) {
+    if (item == null) {
+      return "item is null";
+    }
+    Set<ConstraintViolation<Object>> violations = validator.validate(item);
+    if (violations.isEmpty()) {
+      return null;
+    }
+    ConstraintViolation<Object> violation = violations.iterator().next();
+    return violation.getPropertyPath() + " " + violation.getMessage();
+  }
+}
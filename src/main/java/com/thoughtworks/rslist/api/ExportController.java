@@ -0,0 +1,26 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.service.ExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+public class ExportController {
+  public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+  @Autowired ExportService exportService;
+
+  @GetMapping("/export/rs")
+  public ResponseEntity<StreamingResponseBody> exportRsEvents() {
+    return ResponseEntity.ok().contentType(NDJSON).body(exportService::exportRankedList);
+  }
+
+  @GetMapping("/export/votes")
+  public ResponseEntity<StreamingResponseBody> exportVotes() {
+    return ResponseEntity.ok().contentType(NDJSON).body(exportService::exportVotes);
+  }
+}
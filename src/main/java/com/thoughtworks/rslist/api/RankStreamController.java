@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.ranking.RankStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+public class RankStreamController {
+  @Autowired RankStream rankStream;
+
+  @GetMapping(path = "/rs/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamRanks() {
+    return rankStream.subscribe();
+  }
+}
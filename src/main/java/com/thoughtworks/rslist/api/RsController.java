@@ -1,17 +1,23 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.ItemResult;
 import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.TrendingEvent;
 import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.exception.AmountNotEnoughException;
 import com.thoughtworks.rslist.exception.Error;
 import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceBusyException;
+import com.thoughtworks.rslist.ranking.RankOrder;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.RequestExecutor;
 import com.thoughtworks.rslist.service.RsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,9 +29,15 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @Validated
@@ -33,33 +45,26 @@ public class RsController {
   @Autowired RsEventRepository rsEventRepository;
   @Autowired UserRepository userRepository;
   @Autowired RsService rsService;
+  @Autowired RequestExecutor requestExecutor;
+  @Autowired Validator validator;
 
   @GetMapping("/rs/list")
   public ResponseEntity<List<RsEvent>> getRsEventListBetween(
-      @RequestParam(required = false) Integer start, @RequestParam(required = false) Integer end) {
-    if (start == null || end == null) {
-      return ResponseEntity.ok(rsService.getList());
-    }
-    return ResponseEntity.ok(rsService.getList(start - 1, end));
+      @RequestParam(required = false) Integer start,
+      @RequestParam(required = false) Integer end,
+      @RequestParam(required = false) String order) {
+    return ResponseEntity.ok(rsService.getList(RankOrder.parse(order), start, end));
+  }
+
+  @GetMapping("/rs/trending")
+  public ResponseEntity<List<TrendingEvent>> getTrending(
+      @RequestParam(defaultValue = "60") int minutes, @RequestParam(defaultValue = "10") int limit) {
+    return ResponseEntity.ok(rsService.getTrending(minutes, limit));
   }
 
   @GetMapping("/rs/{index}")
   public ResponseEntity<RsEvent> getRsEvent(@PathVariable int index) {
-    List<RsEvent> rsEvents =
-        rsEventRepository.findAll().stream()
-            .map(
-                item ->
-                    RsEvent.builder()
-                        .eventName(item.getEventName())
-                        .keyword(item.getKeyword())
-                        .userId(item.getId())
-                        .voteNum(item.getVoteNum())
-                        .build())
-            .collect(Collectors.toList());
-    if (index < 1 || index > rsEvents.size()) {
-      throw new RequestNotValidException("invalid index");
-    }
-    return ResponseEntity.ok(rsEvents.get(index - 1));
+    return ResponseEntity.ok(rsService.getRsEvent(index));
   }
 
   @PostMapping("/rs/event")
@@ -79,16 +84,68 @@ public class RsController {
     return ResponseEntity.created(null).build();
   }
 
+  @PostMapping("/rs/events")
+  public ResponseEntity<List<ItemResult>> addRsEvents(@RequestBody List<RsEvent> rsEvents) {
+    if (rsEvents.size() > BulkValidation.MAX_ITEMS) {
+      throw new RequestNotValidException("too many rs events");
+    }
+    Set<Integer> userIds = new HashSet<>();
+    rsEvents.forEach(rsEvent -> {
+      if (rsEvent != null) {
+        userIds.add(rsEvent.getUserId());
+      }
+    });
+    Map<Integer, UserDto> users = new HashMap<>();
+    userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+
+    List<ItemResult> results = new ArrayList<>(rsEvents.size());
+    List<RsEventDto> rsEventDtos = new ArrayList<>(rsEvents.size());
+    for (int i = 0; i < rsEvents.size(); i++) {
+      RsEvent rsEvent = rsEvents.get(i);
+      String violation = BulkValidation.firstViolation(validator, rsEvent);
+      if (violation != null) {
+        results.add(ItemResult.failed(i, violation));
+        continue;
+      }
+      UserDto userDto = users.get(rsEvent.getUserId());
+      if (userDto == null) {
+        results.add(ItemResult.failed(i, "invalid user"));
+        continue;
+      }
+      rsEventDtos.add(
+          RsEventDto.builder()
+              .keyword(rsEvent.getKeyword())
+              .eventName(rsEvent.getEventName())
+              .voteNum(0)
+              .user(userDto)
+              .build());
+      results.add(ItemResult.ok(i));
+    }
+    rsEventRepository.saveAll(rsEventDtos);
+    return ResponseEntity.ok(results);
+  }
+
   @PostMapping("/rs/vote/{id}")
-  public ResponseEntity vote(@PathVariable int id, @RequestBody Vote vote) {
-    rsService.vote(vote, id);
-    return ResponseEntity.ok().build();
+  public CompletableFuture<ResponseEntity> vote(@PathVariable int id, @RequestBody Vote vote) {
+    return requestExecutor.submit(
+        () -> {
+          rsService.vote(vote, id);
+          return ResponseEntity.ok().build();
+        });
+  }
+
+  @PostMapping("/rs/votes")
+  public ResponseEntity<List<ItemResult>> voteAll(@RequestBody List<Vote> votes) {
+    return ResponseEntity.ok(rsService.voteAll(votes));
   }
 
   @PostMapping("/rs/buy/{id}")
-  public ResponseEntity buy(@PathVariable int id, @RequestBody Trade trade){
-    rsService.buy(trade, id);
-    return ResponseEntity.ok().build();
+  public CompletableFuture<ResponseEntity> buy(@PathVariable int id, @RequestBody Trade trade){
+    return requestExecutor.submit(
+        () -> {
+          rsService.buy(trade, id);
+          return ResponseEntity.ok().build();
+        });
   }
 
 
@@ -107,4 +164,11 @@ public class RsController {
     error.setError(e.getMessage());
     return ResponseEntity.badRequest().body(error);
   }
+
+  @ExceptionHandler(ServiceBusyException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(ServiceBusyException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+  }
 }
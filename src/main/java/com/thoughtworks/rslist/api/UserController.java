@@ -1,21 +1,29 @@
 package com.thoughtworks.rslist.api;
 
+import com.thoughtworks.rslist.domain.ItemResult;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
 import com.thoughtworks.rslist.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 public class UserController {
   @Autowired UserRepository userRepository;
+  @Autowired Validator validator;
 
   @PostMapping("/user")
   public void register(@RequestBody @Valid User user) {
@@ -29,9 +37,45 @@ public class UserController {
     userRepository.save(userDto);
   }
 
+  @PostMapping("/users")
+  public ResponseEntity<List<ItemResult>> registerAll(@RequestBody List<User> users) {
+    if (users.size() > BulkValidation.MAX_ITEMS) {
+      throw new RequestNotValidException("too many users");
+    }
+    List<ItemResult> results = new ArrayList<>(users.size());
+    List<UserDto> userDtos = new ArrayList<>(users.size());
+    for (int i = 0; i < users.size(); i++) {
+      User user = users.get(i);
+      String violation = BulkValidation.firstViolation(validator, user);
+      if (violation != null) {
+        results.add(ItemResult.failed(i, violation));
+        continue;
+      }
+      userDtos.add(
+          UserDto.builder()
+              .gender(user.getGender())
+              .phone(user.getPhone())
+              .voteNum(user.getVoteNum())
+              .age(user.getAge())
+              .email(user.getEmail())
+              .userName(user.getUserName())
+              .build());
+      results.add(ItemResult.ok(i));
+    }
+    userRepository.saveAll(userDtos);
+    return ResponseEntity.ok(results);
+  }
+
   @DeleteMapping("/user/{id}")
   public ResponseEntity deleteUser(@PathVariable int id) {
     userRepository.deleteById(id);
     return ResponseEntity.ok().build();
   }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
+  }
 }
@@ -1,11 +1,15 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.exception.Error;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRecord;
 import com.thoughtworks.rslist.repository.VoteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,22 +19,50 @@ import java.util.stream.Collectors;
 
 @RestController
 public class VoteController {
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  private static final int MAX_PAGE_SIZE = 100;
+
   @Autowired VoteRepository voteRepository;
 
+  // Without pageIndex the records are paged by (time, id): pass the X-Next-Cursor header of one
+  // response as the cursor of the next request. The header is absent on the last page.
   @GetMapping("/voteRecord")
   public ResponseEntity<List<Vote>> getVoteRecord(
-      @RequestParam int userId, @RequestParam int rsEventId, @RequestParam int pageIndex) {
-    Pageable pageable = PageRequest.of(pageIndex - 1, 5);
-    return ResponseEntity.ok(
-        voteRepository.findAllByUserIdAndRsEventId(userId, rsEventId, pageable).stream()
-            .map(
-                item ->
-                    Vote.builder()
-                        .voteNum(item.getNum())
-                        .userId(item.getUser().getId())
-                        .time(item.getLocalDateTime())
-                        .rsEventId(item.getRsEvent().getId())
-                        .build())
-            .collect(Collectors.toList()));
+      @RequestParam int userId,
+      @RequestParam int rsEventId,
+      @RequestParam(required = false) Integer pageIndex,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "5") int pageSize) {
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new RequestNotValidException("invalid page size");
+    }
+    if (pageIndex != null) {
+      if (pageIndex < 1) {
+        throw new RequestNotValidException("invalid page index");
+      }
+      Pageable pageable = PageRequest.of(pageIndex - 1, pageSize);
+      return ResponseEntity.ok(voteRepository.findVoteRecords(userId, rsEventId, pageable));
+    }
+
+    Pageable limit = PageRequest.of(0, pageSize);
+    List<VoteRecord> records;
+    if (cursor == null) {
+      records = voteRepository.findFirstVoteRecords(userId, rsEventId, limit);
+    } else {
+      VoteCursor after = VoteCursor.decode(cursor);
+      records = voteRepository.findVoteRecordsAfter(userId, rsEventId, after.getTime(), after.getId(), limit);
+    }
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (records.size() == pageSize) {
+      response.header(NEXT_CURSOR_HEADER, VoteCursor.after(records.get(records.size() - 1)).encode());
+    }
+    return response.body(records.stream().map(VoteRecord::toVote).collect(Collectors.toList()));
+  }
+
+  @ExceptionHandler(RequestNotValidException.class)
+  public ResponseEntity<Error> handleRequestErrorHandler(RequestNotValidException e) {
+    Error error = new Error();
+    error.setError(e.getMessage());
+    return ResponseEntity.badRequest().body(error);
   }
 }
@@ -0,0 +1,39 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.VoteRecord;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/** Continuation token for keyset paging of vote records: the (time, id) of the last row served. */
+@Data
+@AllArgsConstructor
+class VoteCursor {
+  private LocalDateTime time;
+  private int id;
+
+  static VoteCursor after(VoteRecord record) {
+    return new VoteCursor(record.getTime(), record.getId());
+  }
+
+  String encode() {
+    String raw = time + "|" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static VoteCursor decode(String token) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = raw.lastIndexOf('|');
+      return new VoteCursor(
+          LocalDateTime.parse(raw.substring(0, separator)), Integer.parseInt(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+      throw new RequestNotValidException("invalid cursor");
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Outcome of one item of a bulk request, addressed by its position in the request body. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class ItemResult {
+  private int index;
+  private boolean success;
+  private String error;
+
+  public static ItemResult ok(int index) {
+    return new ItemResult(index, true, null);
+  }
+
+  public static ItemResult failed(int index, String error) {
+    return new ItemResult(index, false, error);
+  }
+}
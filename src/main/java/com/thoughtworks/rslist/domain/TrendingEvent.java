@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** An event with the votes it received within the requested trending window. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Data
+public class TrendingEvent {
+  private int rsEventId;
+  private String eventName;
+  private String keyword;
+  private long votes;
+}
@@ -0,0 +1,32 @@
+package com.thoughtworks.rslist.dto;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Turns the second-level cache of {@link UserDto} and {@link RsEventDto} off when the rank store is
+ * replicated. The Caffeine regions are local to a node and nothing tells them about writes made on
+ * other nodes, so the balance checks of a vote would read another node's stale voteNum and only fail
+ * at flush, on the version check. Without the cache every node reads users and events from the
+ * database again: one more select per lookup in exchange for balances that are never stale.
+ */
+@Component
+public class EntityCacheSettings implements HibernatePropertiesCustomizer {
+  private final boolean replicated;
+
+  public EntityCacheSettings(@Value("${rslist.rank-store.mode:local}") String rankStoreMode) {
+    this.replicated = "replicated".equals(rankStoreMode);
+  }
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    if (replicated) {
+      hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+      hibernateProperties.put(AvailableSettings.USE_QUERY_CACHE, false);
+    }
+  }
+}
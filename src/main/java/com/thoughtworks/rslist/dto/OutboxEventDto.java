@@ -0,0 +1,32 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/** Compact record of one committed vote or trade, waiting to be relayed to the outbox consumers. */
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "outboxEvent")
+public class OutboxEventDto {
+  public static final String VOTE = "vote";
+  public static final String TRADE = "trade";
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+  private String type;
+  private int rsEventId;
+  private Integer userId;
+  private int voteNum;
+  private int tradeRank;
+  private double amount;
+  private LocalDateTime createdAt;
+}
@@ -0,0 +1,36 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * State of an {@link RsEventDto} as one node committed it, for the other nodes to apply. Ids come
+ * from the database's identity column so that every node reads them in one order.
+ */
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "rankDelta")
+public class RankDeltaDto {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+  private String nodeId;
+  private int rsEventId;
+  private String eventName;
+  private String keyword;
+  private int voteNum;
+  private int boughtRank;
+  private int isDeleted;
+  private boolean removed;
+  private Integer version;
+  private Double heat;
+  private LocalDateTime createdAt;
+}
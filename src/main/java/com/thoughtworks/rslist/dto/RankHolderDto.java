@@ -0,0 +1,28 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "rankHolder")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankHolderDto {
+  @Id
+  @Column(name = "holder_rank")
+  private int rank;
+  private double amount;
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "rs_event_id")
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  private RsEventDto rsEvent;
+  @Version private Integer version;
+}
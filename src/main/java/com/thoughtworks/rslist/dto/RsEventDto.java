@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -13,14 +15,21 @@ import javax.persistence.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "rsEvent")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class RsEventDto {
-  @Id @GeneratedValue private int id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rs_event_seq")
+  @SequenceGenerator(name = "rs_event_seq", sequenceName = "rs_event_seq", allocationSize = 50)
+  private int id;
   private String eventName;
   private String keyword;
   private int voteNum;
   private int boughtRank;
   private int isDeleted;
-  @ManyToOne
+  private Double heat;
+  @Version private Integer version;
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id")
   private UserDto user;
 }
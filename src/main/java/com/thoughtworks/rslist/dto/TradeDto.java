@@ -20,6 +20,6 @@ public class TradeDto {
     private double amount;
     private int rank;
 //    private int rsevent_id;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private RsEventDto rsEventDto;
 }
@@ -0,0 +1,28 @@
+package com.thoughtworks.rslist.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/** A write-behind vote that was acknowledged but could not be applied, with the reason why. */
+@Entity
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "voteDeadLetter")
+public class VoteDeadLetterDto {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+  private int userId;
+  private int rsEventId;
+  private int voteNum;
+  private LocalDateTime voteTime;
+  private String reason;
+  private LocalDateTime createdAt;
+}
@@ -5,11 +5,15 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import java.time.LocalDateTime;
 
@@ -20,11 +24,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Table(name = "vote")
 public class VoteDto {
-  @Id @GeneratedValue private int id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vote_seq")
+  @SequenceGenerator(name = "vote_seq", sequenceName = "vote_seq", allocationSize = 50)
+  private int id;
 
+  @Column(nullable = false)
   private LocalDateTime localDateTime;
 
   private int num;
-  @ManyToOne @JoinColumn(name = "user_id") private UserDto user;
-  @ManyToOne @JoinColumn(name = "rs_event_id") private RsEventDto rsEvent;
+  @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "user_id") private UserDto user;
+  @ManyToOne(fetch = FetchType.LAZY) @JoinColumn(name = "rs_event_id") private RsEventDto rsEvent;
 }
@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.exception;
+
+public class ServiceBusyException extends RuntimeException {
+  private String error;
+
+  public ServiceBusyException(String error) {
+    this.error = error;
+  }
+
+  @Override
+  public String getMessage() {
+    return error;
+  }
+}
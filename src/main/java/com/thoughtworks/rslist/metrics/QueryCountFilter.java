@@ -0,0 +1,60 @@
+package com.thoughtworks.rslist.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records how many SQL statements each request issued, tagged like http.server.requests. A request
+ * that goes async keeps its count in a request attribute and records it on the async dispatch,
+ * after the work it handed off has finished.
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+  private static final String COUNT_ATTRIBUTE = QueryCountFilter.class.getName() + ".count";
+
+  private final QueryCounter queryCounter;
+  private final MeterRegistry meterRegistry;
+
+  public QueryCountFilter(QueryCounter queryCounter, MeterRegistry meterRegistry) {
+    this.queryCounter = queryCounter;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    AtomicInteger count = (AtomicInteger) request.getAttribute(COUNT_ATTRIBUTE);
+    count = count == null ? queryCounter.start() : queryCounter.resume(count);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      int statements = queryCounter.stop();
+      if (request.isAsyncStarted()) {
+        request.setAttribute(COUNT_ATTRIBUTE, count);
+      } else {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("rslist.http.queries")
+            .baseUnit("statements")
+            .tag("method", request.getMethod())
+            .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+            .register(meterRegistry)
+            .record(statements);
+      }
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.thoughtworks.rslist.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open. Plugged
+ * into the session factory as its statement inspector; {@link QueryCountFilter} opens one count per
+ * request, and {@link #propagate} carries it into work the request hands to another thread.
+ */
+@Component
+public class QueryCounter implements StatementInspector, HibernatePropertiesCustomizer {
+  private final ThreadLocal<AtomicInteger> counts = new ThreadLocal<>();
+
+  public AtomicInteger start() {
+    return resume(new AtomicInteger());
+  }
+
+  /** Makes an already open count current on this thread, e.g. on the async dispatch of its request. */
+  public AtomicInteger resume(AtomicInteger count) {
+    counts.set(count);
+    return count;
+  }
+
+  public int current() {
+    AtomicInteger count = counts.get();
+    return count == null ? 0 : count.get();
+  }
+
+  public int stop() {
+    int statements = current();
+    counts.remove();
+    return statements;
+  }
+
+  /** Wraps a task so that the statements it issues on another thread count towards this thread's count. */
+  public <T> Supplier<T> propagate(Supplier<T> task) {
+    AtomicInteger count = counts.get();
+    if (count == null) {
+      return task;
+    }
+    return () -> {
+      counts.set(count);
+      try {
+        return task.get();
+      } finally {
+        counts.remove();
+      }
+    };
+  }
+
+  @Override
+  public String inspect(String sql) {
+    AtomicInteger count = counts.get();
+    if (count != null) {
+      count.incrementAndGet();
+    }
+    return sql;
+  }
+
+  @Override
+  public void customize(Map<String, Object> hibernateProperties) {
+    hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+  }
+}
@@ -0,0 +1,57 @@
+package com.thoughtworks.rslist.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Times every Spring Data repository call, tagged with the repository interface and method. */
+@Aspect
+@Component
+public class RepositoryTimingAspect {
+  private final MeterRegistry meterRegistry;
+  private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+  public RepositoryTimingAspect(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String exception = "none";
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable e) {
+      exception = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      sample.stop(
+          Timer.builder("rslist.repository.invocations")
+              .tag("repository", repositoryName(joinPoint.getThis()))
+              .tag("method", joinPoint.getSignature().getName())
+              .tag("exception", exception)
+              .register(meterRegistry));
+    }
+  }
+
+  private String repositoryName(Object proxy) {
+    return repositoryNames.computeIfAbsent(
+        proxy.getClass(),
+        type -> {
+          for (Class<?> candidate : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (Repository.class.isAssignableFrom(candidate)) {
+              return candidate.getSimpleName();
+            }
+          }
+          return type.getSimpleName();
+        });
+  }
+}
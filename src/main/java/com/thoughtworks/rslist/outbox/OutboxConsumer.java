@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+
+import java.util.List;
+
+/**
+ * Receives relayed outbox records, oldest first. Records of one rs event always arrive in commit
+ * order. Consumers run inside the relay transaction and should hand slow work off. Throwing makes
+ * the relay offer the same records again on its next pass; see {@link OutboxRelay} for when a
+ * record can arrive twice.
+ */
+public interface OutboxConsumer {
+  void accept(List<OutboxEventDto> records);
+}
@@ -0,0 +1,32 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Counts relayed votes and trade amounts, so dashboards no longer re-query the vote and trade tables. */
+@Component
+public class OutboxMetrics implements OutboxConsumer {
+  private final Counter votes;
+  private final DistributionSummary tradeAmounts;
+
+  public OutboxMetrics(MeterRegistry meterRegistry) {
+    this.votes = meterRegistry.counter("rslist.outbox.votes");
+    this.tradeAmounts = meterRegistry.summary("rslist.outbox.trade.amount");
+  }
+
+  @Override
+  public void accept(List<OutboxEventDto> records) {
+    for (OutboxEventDto record : records) {
+      if (OutboxEventDto.VOTE.equals(record.getType())) {
+        votes.increment(record.getVoteNum());
+      } else if (OutboxEventDto.TRADE.equals(record.getType())) {
+        tradeAmounts.record(record.getAmount());
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+import com.thoughtworks.rslist.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the outbox to the registered consumers. Each pass locks the oldest batch-size records in
+ * one transaction, hands every consumer the ones it has not yet accepted, in id order, and deletes
+ * the records all consumers have accepted with one statement.
+ *
+ * <p>The guarantee is at-least-once, in id order, per consumer. Progress is tracked per consumer in
+ * memory: a consumer that throws gets the same records again on the next pass, up to max-attempts
+ * times, after which they are skipped for it and counted. The others are not held back and do not
+ * see the records twice. Records still in the table after a restart, or relayed by another node
+ * while a consumer here was failing, are delivered again, so consumers must tolerate duplicates;
+ * ignoring ids at or below the last one seen is enough.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+  private final OutboxEventRepository outboxEventRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final List<OutboxConsumer> consumers = new CopyOnWriteArrayList<>();
+  private final Map<OutboxConsumer, Progress> progress = new ConcurrentHashMap<>();
+  private final boolean enabled;
+  private final long pollIntervalMs;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Counter relayed;
+  private final Counter failures;
+  private final Counter skipped;
+  private ScheduledExecutorService drainer;
+
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      ObjectProvider<OutboxConsumer> consumers,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${rslist.outbox.enabled:true}") boolean enabled,
+      @Value("${rslist.outbox.poll-interval-ms:200}") long pollIntervalMs,
+      @Value("${rslist.outbox.batch-size:500}") int batchSize,
+      @Value("${rslist.outbox.max-attempts:5}") int maxAttempts) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    consumers.orderedStream().forEach(this.consumers::add);
+    this.enabled = enabled;
+    this.pollIntervalMs = pollIntervalMs;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.relayed = meterRegistry.counter("rslist.outbox.relayed");
+    this.failures = meterRegistry.counter("rslist.outbox.consumer.failures");
+    this.skipped = meterRegistry.counter("rslist.outbox.consumer.skipped");
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    drainer =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "outbox-relay");
+              thread.setDaemon(true);
+              return thread;
+            });
+    drainer.scheduleWithFixedDelay(this::drainQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (drainer == null) {
+      return;
+    }
+    drainer.shutdown();
+    drainer.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  public void register(OutboxConsumer consumer) {
+    consumers.add(consumer);
+  }
+
+  /** Relays one batch; returns how many records every consumer has now accepted and were deleted. */
+  public synchronized int relayBatch() {
+    Integer delivered = transactionTemplate.execute(status -> deliver());
+    return delivered == null ? 0 : delivered;
+  }
+
+  private int deliver() {
+    List<OutboxEventDto> batch = outboxEventRepository.lockOldest(PageRequest.of(0, batchSize));
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    long last = batch.get(batch.size() - 1).getId();
+    long done = last;
+    for (OutboxConsumer consumer : consumers) {
+      Progress consumed = progress.computeIfAbsent(consumer, key -> new Progress());
+      List<OutboxEventDto> records = after(batch, consumed.upTo);
+      if (!records.isEmpty()) {
+        try {
+          consumer.accept(Collections.unmodifiableList(records));
+          consumed.accepted(last);
+        } catch (RuntimeException e) {
+          failures.increment();
+          if (++consumed.attempts < maxAttempts) {
+            log.warn("outbox consumer {} failed, retrying {} records", consumer, records.size(), e);
+          } else {
+            log.error("outbox consumer {} skips {} records after {} attempts", consumer, records.size(), maxAttempts, e);
+            skipped.increment(records.size());
+            consumed.accepted(last);
+          }
+        }
+      }
+      done = Math.min(done, consumed.upTo);
+    }
+    List<Long> ids = new ArrayList<>(batch.size());
+    for (OutboxEventDto record : batch) {
+      if (record.getId() <= done) {
+        ids.add(record.getId());
+      }
+    }
+    if (!ids.isEmpty()) {
+      outboxEventRepository.deleteByIds(ids);
+      relayed.increment(ids.size());
+    }
+    return ids.size();
+  }
+
+  private static List<OutboxEventDto> after(List<OutboxEventDto> batch, long id) {
+    int from = 0;
+    while (from < batch.size() && batch.get(from).getId() <= id) {
+      from++;
+    }
+    return batch.subList(from, batch.size());
+  }
+
+  private void drainQuietly() {
+    try {
+      int delivered;
+      do {
+        delivered = relayBatch();
+      } while (delivered == batchSize);
+    } catch (RuntimeException e) {
+      log.error("outbox relay failed", e);
+    }
+  }
+
+  // Guarded by the relayBatch monitor.
+  private static final class Progress {
+    long upTo;
+    int attempts;
+
+    void accepted(long id) {
+      upTo = id;
+      attempts = 0;
+    }
+  }
+}
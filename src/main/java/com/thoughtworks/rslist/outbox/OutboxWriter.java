@@ -0,0 +1,155 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adds an outbox_event row for every {@link VoteDto} and {@link TradeDto} insert, whichever code
+ * path (single vote, bulk vote, write-behind flush, bid) made it. The rows of a transaction are
+ * collected and written as one JDBC batch just before it commits, after its last flush, on its own
+ * connection, so they commit or roll back with the inserts they describe.
+ */
+@Component
+public class OutboxWriter implements PostInsertEventListener {
+  static final String INSERT =
+      "insert into outbox_event (type, rs_event_id, user_id, vote_num, trade_rank, amount, created_at) "
+          + "values (?, ?, ?, ?, ?, ?, ?)";
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final boolean enabled;
+  private final Map<SharedSessionContractImplementor, Pending> pending = new ConcurrentHashMap<>();
+
+  public OutboxWriter(
+      EntityManagerFactory entityManagerFactory, @Value("${rslist.outbox.enabled:true}") boolean enabled) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.enabled = enabled;
+  }
+
+  @PostConstruct
+  public void register() {
+    if (!enabled) {
+      return;
+    }
+    entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class)
+        .appendListeners(EventType.POST_INSERT, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    OutboxEventDto record = toRecord(event.getEntity());
+    if (record == null) {
+      return;
+    }
+    EventSource session = event.getSession();
+    pending
+        .computeIfAbsent(
+            session,
+            key -> {
+              Pending created = new Pending();
+              session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) created);
+              session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) created);
+              return created;
+            })
+        .records
+        .add(record);
+  }
+
+  private static OutboxEventDto toRecord(Object entity) {
+    if (entity instanceof VoteDto) {
+      VoteDto voteDto = (VoteDto) entity;
+      return OutboxEventDto.builder()
+          .type(OutboxEventDto.VOTE)
+          .rsEventId(voteDto.getRsEvent().getId())
+          .userId(voteDto.getUser().getId())
+          .voteNum(voteDto.getNum())
+          .createdAt(voteDto.getLocalDateTime())
+          .build();
+    }
+    if (entity instanceof TradeDto) {
+      TradeDto tradeDto = (TradeDto) entity;
+      return OutboxEventDto.builder()
+          .type(OutboxEventDto.TRADE)
+          .rsEventId(tradeDto.getRsEventDto().getId())
+          .tradeRank(tradeDto.getRank())
+          .amount(tradeDto.getAmount())
+          .build();
+    }
+    return null;
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  private static void write(SessionImplementor session, List<OutboxEventDto> records) {
+    session.doWork(
+        connection -> {
+          try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            for (OutboxEventDto record : records) {
+              statement.setString(1, record.getType());
+              statement.setInt(2, record.getRsEventId());
+              if (record.getUserId() == null) {
+                statement.setNull(3, Types.INTEGER);
+              } else {
+                statement.setInt(3, record.getUserId());
+              }
+              statement.setInt(4, record.getVoteNum());
+              statement.setInt(5, record.getTradeRank());
+              statement.setDouble(6, record.getAmount());
+              LocalDateTime createdAt = record.getCreatedAt() == null ? LocalDateTime.now() : record.getCreatedAt();
+              statement.setTimestamp(7, Timestamp.valueOf(createdAt));
+              statement.addBatch();
+            }
+            statement.executeBatch();
+          }
+        });
+  }
+
+  // The rows of one session's transaction. Hibernate runs the before-completion step only on
+  // commit; the after-completion step forgets the rows of a rollback.
+  private final class Pending implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+    final List<OutboxEventDto> records = new ArrayList<>();
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+      pending.remove(session, this);
+      if (!records.isEmpty()) {
+        write(session, records);
+      }
+    }
+
+    @Override
+    public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+      pending.remove(session, this);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.thoughtworks.rslist.ranking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Exponentially decayed vote weight, kept as a logarithm. A vote of weight w cast at t adds
+ * w * 2^((t - EPOCH) / HALF_LIFE): every event decays at the same rate, so comparing these
+ * epoch-anchored sums orders events exactly as their weight decayed to now would, and a vote is
+ * folded in with one log-sum-exp instead of a rescan. In the log domain the growing exponent never
+ * overflows.
+ */
+public final class HeatScore {
+  /** Stored scores are only comparable under one half-life; changing it needs a rescore of rs_event. */
+  public static final Duration HALF_LIFE = Duration.ofHours(24);
+  static final LocalDateTime EPOCH = LocalDateTime.of(2020, 1, 1, 0, 0);
+  static final double DECAY_PER_SECOND = Math.log(2) / HALF_LIFE.getSeconds();
+  /** Older votes count as cast this long ago; by then a vote weighs under a billionth of itself. */
+  static final Duration MAX_AGE = HALF_LIFE.multipliedBy(30);
+
+  private HeatScore() {}
+
+  /** The score after voteNum votes cast at time; null stands for no votes at all. */
+  public static Double add(Double heat, int voteNum, LocalDateTime time) {
+    return add(heat, voteNum, time, LocalDateTime.now());
+  }
+
+  /**
+   * The vote time comes from the client, so it is kept between now - MAX_AGE and now: a vote dated
+   * in the future would otherwise outweigh every honest one for as long as it likes.
+   */
+  static Double add(Double heat, int voteNum, LocalDateTime time, LocalDateTime now) {
+    if (voteNum <= 0) {
+      return heat;
+    }
+    LocalDateTime castAt = time == null || time.isAfter(now) ? now : time;
+    LocalDateTime oldest = now.minus(MAX_AGE);
+    if (castAt.isBefore(oldest)) {
+      castAt = oldest;
+    }
+    double vote = Math.log(voteNum) + DECAY_PER_SECOND * Duration.between(EPOCH, castAt).getSeconds();
+    if (heat == null) {
+      return vote;
+    }
+    double high = Math.max(heat, vote);
+    return high + Math.log1p(Math.exp(Math.min(heat, vote) - high));
+  }
+
+  /** The decayed vote weight the score stands for, as of now. */
+  public static double weightAt(Double heat, LocalDateTime now) {
+    if (heat == null) {
+      return 0;
+    }
+    return Math.exp(heat - DECAY_PER_SECOND * Duration.between(EPOCH, now).getSeconds());
+  }
+}
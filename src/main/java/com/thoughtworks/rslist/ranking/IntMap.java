@@ -0,0 +1,111 @@
+package com.thoughtworks.rslist.ranking;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from int keys to non-null values: lookups by event id neither box the key
+ * nor allocate an entry per mapping. Removal shifts the following run back instead of leaving
+ * tombstones, so the table never needs cleaning up.
+ */
+final class IntMap<V> {
+  private int[] keys;
+  private Object[] values;
+  private int size;
+
+  IntMap() {
+    this(16);
+  }
+
+  IntMap(int capacity) {
+    int length = Integer.highestOneBit(Math.max(4, capacity) * 2 - 1);
+    keys = new int[length];
+    values = new Object[length];
+  }
+
+  int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return (V) values[i];
+      }
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  V put(int key, V value) {
+    if ((size + 1) * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        V previous = (V) values[i];
+        values[i] = value;
+        return previous;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    size++;
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  V remove(int key) {
+    int mask = keys.length - 1;
+    int gap = hash(key) & mask;
+    while (values[gap] != null && keys[gap] != key) {
+      gap = (gap + 1) & mask;
+    }
+    if (values[gap] == null) {
+      return null;
+    }
+    V previous = (V) values[gap];
+    for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+      int home = hash(keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    values[gap] = null;
+    size--;
+    return previous;
+  }
+
+  void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private void resize(int length) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new int[length];
+    values = new Object[length];
+    int mask = length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int j = hash(oldKeys[i]) & mask;
+        while (values[j] != null) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
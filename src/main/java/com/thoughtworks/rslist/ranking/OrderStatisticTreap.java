@@ -0,0 +1,167 @@
+package com.thoughtworks.rslist.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Sorted set with positional access: a treap whose nodes know their subtree size. Insert, remove
+ * and finding the element at an index take O(log n) expected time; a run of k consecutive elements
+ * takes O(log n + k). Elements must be distinct under the comparator. Not thread-safe.
+ */
+final class OrderStatisticTreap<T> {
+  private final Comparator<? super T> comparator;
+  private final Random random = new Random();
+  private Node<T> root;
+
+  OrderStatisticTreap(Comparator<? super T> comparator) {
+    this.comparator = comparator;
+  }
+
+  int size() {
+    return size(root);
+  }
+
+  void clear() {
+    root = null;
+  }
+
+  void insert(T value) {
+    root = insert(root, new Node<>(value, random.nextInt()));
+  }
+
+  void remove(T value) {
+    root = remove(root, value);
+  }
+
+  T get(int index) {
+    Node<T> node = root;
+    int remaining = index;
+    while (node != null) {
+      int leftSize = size(node.left);
+      if (remaining < leftSize) {
+        node = node.left;
+      } else if (remaining == leftSize) {
+        return node.value;
+      } else {
+        remaining -= leftSize + 1;
+        node = node.right;
+      }
+    }
+    throw new IndexOutOfBoundsException("index " + index);
+  }
+
+  /** Up to count elements in order, starting at index from. */
+  List<T> range(int from, int count) {
+    List<T> result = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+    collect(root, from, from + count, result);
+    return result;
+  }
+
+  private void collect(Node<T> node, int from, int to, List<T> result) {
+    if (node == null || from >= to) {
+      return;
+    }
+    int leftSize = size(node.left);
+    if (from < leftSize) {
+      collect(node.left, from, Math.min(to, leftSize), result);
+    }
+    if (from <= leftSize && leftSize < to) {
+      result.add(node.value);
+    }
+    if (to > leftSize + 1) {
+      collect(node.right, Math.max(0, from - leftSize - 1), to - leftSize - 1, result);
+    }
+  }
+
+  private Node<T> insert(Node<T> node, Node<T> fresh) {
+    if (node == null) {
+      return fresh;
+    }
+    if (fresh.priority > node.priority) {
+      split(node, fresh.value, fresh);
+      return update(fresh);
+    }
+    if (comparator.compare(fresh.value, node.value) < 0) {
+      node.left = insert(node.left, fresh);
+    } else {
+      node.right = insert(node.right, fresh);
+    }
+    return update(node);
+  }
+
+  private Node<T> remove(Node<T> node, T value) {
+    if (node == null) {
+      return null;
+    }
+    int compared = comparator.compare(value, node.value);
+    if (compared == 0) {
+      return merge(node.left, node.right);
+    }
+    if (compared < 0) {
+      node.left = remove(node.left, value);
+    } else {
+      node.right = remove(node.right, value);
+    }
+    return update(node);
+  }
+
+  // Splits node into the elements before key (into target.left) and the rest (into target.right).
+  private void split(Node<T> node, T key, Node<T> target) {
+    if (node == null) {
+      target.left = null;
+      target.right = null;
+      return;
+    }
+    Node<T> parts = new Node<>(null, 0);
+    if (comparator.compare(node.value, key) < 0) {
+      split(node.right, key, parts);
+      node.right = parts.left;
+      target.left = update(node);
+      target.right = parts.right;
+    } else {
+      split(node.left, key, parts);
+      node.left = parts.right;
+      target.left = parts.left;
+      target.right = update(node);
+    }
+  }
+
+  private Node<T> merge(Node<T> left, Node<T> right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      return update(left);
+    }
+    right.left = merge(left, right.left);
+    return update(right);
+  }
+
+  private static <T> Node<T> update(Node<T> node) {
+    node.size = 1 + size(node.left) + size(node.right);
+    return node;
+  }
+
+  private static int size(Node<?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static final class Node<T> {
+    final T value;
+    final int priority;
+    Node<T> left;
+    Node<T> right;
+    int size = 1;
+
+    Node(T value, int priority) {
+      this.value = value;
+      this.priority = priority;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.thoughtworks.rslist.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The deltas of one board change. Versions increase by one per change, so a client that sees a gap
+ * or a resync has to start again from a fresh {@link RankSnapshot}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class RankChanges {
+  private long version;
+  private boolean resync;
+  private List<RankDelta> deltas;
+
+  RankChanges(long version, List<RankDelta> deltas) {
+    this(version, false, deltas);
+  }
+
+  static RankChanges resync(long version) {
+    return new RankChanges(version, true, Collections.emptyList());
+  }
+}
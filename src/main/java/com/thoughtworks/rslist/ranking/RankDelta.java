@@ -0,0 +1,30 @@
+package com.thoughtworks.rslist.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One event whose rank changed. Ranks are 1-based; from is 0 for an event that entered the list and
+ * to is 0 for one that left it. A bought delta means the event now holds the bought rank it reports.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class RankDelta {
+  public static final String MOVED = "moved";
+  public static final String ENTERED = "entered";
+  public static final String LEFT = "left";
+  public static final String BOUGHT = "bought";
+
+  private String type;
+  private int rsEventId;
+  private int from;
+  private int to;
+  private int voteNum;
+  private int boughtRank;
+
+  static RankDelta of(String type, RankingBoard.Entry entry, int from, int to) {
+    return new RankDelta(type, entry.id, from, to, entry.voteNum, entry.boughtRank);
+  }
+}
@@ -0,0 +1,86 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a rank_delta row for every {@link RsEventDto} insert, update and delete, on the connection
+ * and in the transaction of the write itself: the delta commits exactly when the change does.
+ */
+class RankDeltaOutbox implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+  static final String INSERT =
+      "insert into rank_delta (node_id, rs_event_id, event_name, keyword, vote_num, bought_rank, is_deleted, "
+          + "removed, version, heat, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final String nodeId;
+
+  RankDeltaOutbox(String nodeId) {
+    this.nodeId = nodeId;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      write(event.getSession(), (RsEventDto) event.getEntity(), false);
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      write(event.getSession(), (RsEventDto) event.getEntity(), false);
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      write(event.getSession(), (RsEventDto) event.getEntity(), true);
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  private void write(EventSource session, RsEventDto rsEventDto, boolean removed) {
+    session.doWork(
+        connection -> {
+          try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setString(1, nodeId);
+            statement.setInt(2, rsEventDto.getId());
+            statement.setString(3, rsEventDto.getEventName());
+            statement.setString(4, rsEventDto.getKeyword());
+            statement.setInt(5, rsEventDto.getVoteNum());
+            statement.setInt(6, rsEventDto.getBoughtRank());
+            statement.setInt(7, rsEventDto.getIsDeleted());
+            statement.setBoolean(8, removed);
+            if (rsEventDto.getVersion() == null) {
+              statement.setNull(9, Types.INTEGER);
+            } else {
+              statement.setInt(9, rsEventDto.getVersion());
+            }
+            if (rsEventDto.getHeat() == null) {
+              statement.setNull(10, Types.DOUBLE);
+            } else {
+              statement.setDouble(10, rsEventDto.getHeat());
+            }
+            statement.setTimestamp(11, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+          }
+        });
+  }
+}
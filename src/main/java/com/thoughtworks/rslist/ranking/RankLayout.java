@@ -0,0 +1,54 @@
+package com.thoughtworks.rslist.ranking;
+
+/**
+ * Works out which event sits at each rank of a window without touching the events themselves.
+ * Bought events take their rank; unbought events fill the remaining ranks in vote order, and once
+ * they run out the leftover bought events close up behind them.
+ */
+public final class RankLayout {
+  private RankLayout() {}
+
+  /**
+   * @param slotRanks bought ranks in ascending order
+   * @param unboughtCount number of unbought events
+   * @return one cell per rank in [start, min(end, total)]: an unbought index (>= 0) or -(slot index + 1)
+   */
+  public static int[] layout(int[] slotRanks, int unboughtCount, int start, int end) {
+    return layout(slotRanks, slotRanks.length, unboughtCount, start, end);
+  }
+
+  /** As above, reading only the first slotCount ranks of slotRanks. */
+  public static int[] layout(int[] slotRanks, int slotCount, int unboughtCount, int start, int end) {
+    int last = Math.min(end, slotCount + unboughtCount);
+    int[] layout = new int[Math.max(0, last - start + 1)];
+    int slot = 0;
+    int used = 0;
+    int rank = 1;
+    while (rank <= last) {
+      if (slot < slotCount && (slotRanks[slot] <= rank || used == unboughtCount)) {
+        if (rank >= start) {
+          layout[rank - start] = -(slot + 1);
+        }
+        slot++;
+        rank++;
+      } else {
+        int limit = slot < slotCount ? Math.min(last + 1, slotRanks[slot]) : last + 1;
+        int take = Math.min(limit - rank, unboughtCount - used);
+        for (int current = Math.max(rank, start); current < rank + take; current++) {
+          layout[current - start] = used + current - rank;
+        }
+        used += take;
+        rank += take;
+      }
+    }
+    return layout;
+  }
+
+  public static boolean isSlot(int cell) {
+    return cell < 0;
+  }
+
+  public static int slotIndex(int cell) {
+    return -cell - 1;
+  }
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+
+/** How unbought events are ordered between the bought ranks. */
+public enum RankOrder {
+  VOTES,
+  HEAT;
+
+  public static RankOrder parse(String value) {
+    if (value == null || value.isEmpty()) {
+      return VOTES;
+    }
+    for (RankOrder order : values()) {
+      if (order.name().equalsIgnoreCase(value)) {
+        return order;
+      }
+    }
+    throw new RequestNotValidException("invalid order");
+  }
+}
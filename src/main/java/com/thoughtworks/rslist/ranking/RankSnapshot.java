@@ -0,0 +1,16 @@
+package com.thoughtworks.rslist.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** The whole ranked list as of version; deltas up to and including that version are already applied. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class RankSnapshot {
+  private long version;
+  private List<RankedEvent> rsEvents;
+}
@@ -0,0 +1,35 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Node-local view of the ranked list that the service reads from. {@link RankingBoard} is the
+ * single-node store; {@link ReplicatedRankStore} keeps the board of every node in step with the
+ * commits of the others.
+ */
+public interface RankStore {
+  List<RsEvent> list();
+
+  List<RsEvent> page(int start, int end);
+
+  List<RsEvent> list(RankOrder order);
+
+  List<RsEvent> page(RankOrder order, int start, int end);
+
+  int size();
+
+  /** Whether reads are answered from memory; if not, the next read loads the store. */
+  boolean isLoaded();
+
+  /** Drops the in-memory state; the next read reloads it from the database. */
+  void invalidate();
+
+  RankSnapshot snapshot();
+
+  void addChangeListener(Runnable listener);
+
+  void addDeltaListener(Consumer<RankChanges> listener);
+}
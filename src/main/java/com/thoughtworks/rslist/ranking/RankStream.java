@@ -0,0 +1,202 @@
+package com.thoughtworks.rslist.ranking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes rank changes to server-sent-event subscribers. A new subscriber first gets a snapshot
+ * event, then a deltas event per board change. The board hands changes over in version order and
+ * one dispatcher thread both takes snapshots and fans changes out, so a subscriber gets exactly the
+ * changes after its snapshot. Writing to the subscribers happens on sender threads, each subscriber
+ * with its own bounded buffer: one that falls behind is dropped and has to reconnect for a fresh
+ * snapshot. When the dispatcher queue itself is full, the change is lost for everyone and the next
+ * one goes out as a resync.
+ */
+@Slf4j
+@Component
+public class RankStream {
+  public static final String SNAPSHOT = "snapshot";
+  public static final String DELTAS = "deltas";
+
+  private final RankStore rankStore;
+  private final long timeoutMs;
+  private final int subscriberBuffer;
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+  private final AtomicBoolean listening = new AtomicBoolean();
+  private final AtomicBoolean overflowed = new AtomicBoolean();
+  private final ThreadPoolExecutor dispatcher;
+  private final ExecutorService senders;
+
+  public RankStream(
+      RankStore rankStore,
+      @Value("${rslist.stream.timeout-ms:1800000}") long timeoutMs,
+      @Value("${rslist.stream.queue-capacity:10000}") int queueCapacity,
+      @Value("${rslist.stream.subscriber-buffer:256}") int subscriberBuffer,
+      @Value("${rslist.stream.sender-threads:4}") int senderThreads) {
+    this.rankStore = rankStore;
+    this.timeoutMs = timeoutMs;
+    this.subscriberBuffer = subscriberBuffer;
+    this.dispatcher =
+        new ThreadPoolExecutor(
+            1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), daemon("rank-stream"));
+    this.senders = Executors.newFixedThreadPool(senderThreads, daemon("rank-stream-send"));
+  }
+
+  public SseEmitter subscribe() {
+    return subscribe(new SseEmitter(timeoutMs));
+  }
+
+  SseEmitter subscribe(SseEmitter emitter) {
+    // Deltas are only worked out once somebody has asked for them.
+    if (listening.compareAndSet(false, true)) {
+      rankStore.addDeltaListener(this::enqueue);
+    }
+    Subscriber subscriber = new Subscriber(emitter);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    emitter.onError(error -> subscribers.remove(subscriber));
+    try {
+      dispatcher.execute(
+          () -> {
+            RankSnapshot snapshot = rankStore.snapshot();
+            subscriber.since = snapshot.getVersion();
+            subscribers.add(subscriber);
+            subscriber.offer(snapshot);
+          });
+    } catch (RejectedExecutionException e) {
+      emitter.completeWithError(e);
+    }
+    return emitter;
+  }
+
+  int subscribers() {
+    return subscribers.size();
+  }
+
+  @PreDestroy
+  public void stop() {
+    dispatcher.shutdownNow();
+    senders.shutdownNow();
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+  }
+
+  // Called under the board's write lock: never blocks, a full queue costs the change instead.
+  private void enqueue(RankChanges changes) {
+    try {
+      dispatcher.execute(() -> broadcast(changes));
+    } catch (RejectedExecutionException e) {
+      overflowed.set(true);
+    }
+  }
+
+  private void broadcast(RankChanges changes) {
+    RankChanges outgoing = overflowed.getAndSet(false) ? RankChanges.resync(changes.getVersion()) : changes;
+    for (Subscriber subscriber : subscribers) {
+      if (outgoing.getVersion() > subscriber.since) {
+        subscriber.offer(outgoing);
+      }
+    }
+  }
+
+  private static ThreadFactory daemon(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  // Events queue up per subscriber and at most one sender drains a subscriber at a time, in order.
+  private final class Subscriber implements Runnable {
+    final SseEmitter emitter;
+    final Deque<Object> pending = new ArrayDeque<>();
+    long since;
+    boolean scheduled;
+    boolean closed;
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    void offer(Object event) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (pending.size() >= subscriberBuffer) {
+          // A sender is still busy with this subscriber; it completes the emitter once it is done.
+          closed = true;
+          pending.clear();
+          subscribers.remove(this);
+          return;
+        }
+        pending.addLast(event);
+        if (scheduled) {
+          return;
+        }
+        scheduled = true;
+      }
+      try {
+        senders.execute(this);
+      } catch (RejectedExecutionException e) {
+        subscribers.remove(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        Object event;
+        synchronized (this) {
+          event = closed ? null : pending.pollFirst();
+          if (event == null && !closed) {
+            scheduled = false;
+            return;
+          }
+        }
+        if (event == null) {
+          log.debug("dropping rank stream subscriber that fell {} events behind", subscriberBuffer);
+          emitter.complete();
+          return;
+        }
+        try {
+          emitter.send(toEvent(event));
+        } catch (IOException | RuntimeException e) {
+          log.debug("dropping rank stream subscriber", e);
+          synchronized (this) {
+            closed = true;
+            pending.clear();
+          }
+          subscribers.remove(this);
+          emitter.completeWithError(e);
+          return;
+        }
+      }
+    }
+
+    private SseEmitter.SseEventBuilder toEvent(Object event) {
+      if (event instanceof RankSnapshot) {
+        return SseEmitter.event().name(SNAPSHOT).data(event);
+      }
+      RankChanges changes = (RankChanges) event;
+      return SseEmitter.event().name(DELTAS).id(String.valueOf(changes.getVersion())).data(changes);
+    }
+  }
+}
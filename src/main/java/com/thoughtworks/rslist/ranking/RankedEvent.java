@@ -0,0 +1,17 @@
+package com.thoughtworks.rslist.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class RankedEvent {
+  private int rank;
+  private int rsEventId;
+  private String eventName;
+  private String keyword;
+  private int voteNum;
+  private int boughtRank;
+}
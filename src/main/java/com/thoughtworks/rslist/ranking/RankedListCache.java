@@ -0,0 +1,105 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the assembled ranked list between changes. Every committed change to the board bumps the
+ * generation; a read after that rebuilds the list once, unless the last rebuild is younger than the
+ * coalescing window, in which case the previous list is served for the rest of the window.
+ */
+@Component
+public class RankedListCache {
+  private final RankStore rankStore;
+  private final boolean enabled;
+  private final long coalesceWindowMs;
+  private final AtomicLong generation = new AtomicLong();
+  private final Counter hits;
+  private final Counter coalesced;
+  private final Counter misses;
+  private final Timer rebuilds;
+  private volatile Snapshot snapshot;
+
+  public RankedListCache(
+      RankStore rankStore,
+      MeterRegistry meterRegistry,
+      @Value("${rslist.list-cache.enabled:true}") boolean enabled,
+      @Value("${rslist.list-cache.coalesce-window-ms:0}") long coalesceWindowMs) {
+    this.rankStore = rankStore;
+    this.enabled = enabled;
+    this.coalesceWindowMs = coalesceWindowMs;
+    this.hits = meterRegistry.counter("rslist.list.cache.requests", "result", "hit");
+    this.coalesced = meterRegistry.counter("rslist.list.cache.requests", "result", "coalesced");
+    this.misses = meterRegistry.counter("rslist.list.cache.requests", "result", "miss");
+    this.rebuilds = meterRegistry.timer("rslist.list.cache.rebuilds");
+    rankStore.addChangeListener(generation::incrementAndGet);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public List<RsEvent> list() {
+    return current().rsEvents;
+  }
+
+  public List<RsEvent> page(int start, int end) {
+    if (start < 1 || end < start) {
+      throw new RequestNotValidException("invalid index");
+    }
+    List<RsEvent> rsEvents = current().rsEvents;
+    if (start > rsEvents.size()) {
+      return Collections.emptyList();
+    }
+    return rsEvents.subList(start - 1, Math.min(end, rsEvents.size()));
+  }
+
+  private Snapshot current() {
+    Snapshot cached = snapshot;
+    if (cached != null && cached.generation == generation.get()) {
+      hits.increment();
+      return cached;
+    }
+    if (cached != null && System.currentTimeMillis() - cached.builtAt < coalesceWindowMs) {
+      coalesced.increment();
+      return cached;
+    }
+    return rebuild();
+  }
+
+  private synchronized Snapshot rebuild() {
+    Snapshot cached = snapshot;
+    long wanted = generation.get();
+    if (cached != null && cached.generation == wanted) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    Snapshot rebuilt =
+        rebuilds.record(
+            () -> new Snapshot(wanted, System.currentTimeMillis(), Collections.unmodifiableList(rankStore.list())));
+    snapshot = rebuilt;
+    return rebuilt;
+  }
+
+  private static final class Snapshot {
+    final long generation;
+    final long builtAt;
+    final List<RsEvent> rsEvents;
+
+    Snapshot(long generation, long builtAt, List<RsEvent> rsEvents) {
+      this.generation = generation;
+      this.builtAt = builtAt;
+      this.rsEvents = rsEvents;
+    }
+  }
+}
@@ -0,0 +1,535 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Resident copy of the hot list: unbought events ordered by vote count plus the bought rank slots.
+ * It is loaded once from the database and then kept up to date by {@link RankingBoardSync}. The
+ * vote order and the slots are kept in int arrays, and {@link RsEvent}s are only created for the
+ * ranks a read returns.
+ */
+@Component
+public class RankingBoard implements RankStore {
+  // Beyond this many affected ranks a change is announced as a resync instead of per-event deltas.
+  static final int MAX_DELTAS = 500;
+  static final Comparator<Entry> HEAT_ORDER =
+      Comparator.comparingDouble((Entry entry) -> entry.heat).reversed().thenComparingInt(entry -> entry.id);
+
+  private final RsEventRepository rsEventRepository;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final IntMap<Entry> entries = new IntMap<>();
+  private final VoteIndex voteIndex = new VoteIndex();
+  private final OrderStatisticTreap<Entry> heatIndex = new OrderStatisticTreap<>(HEAT_ORDER);
+  private final SlotTable<Entry> boughtSlots = new SlotTable<>();
+  // Events whose bought rank is held by another event; they rank as unbought until the slot frees.
+  private final IntMap<List<Entry>> claimants = new IntMap<>();
+  private long slotMoves;
+  private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+  private final List<Consumer<RankChanges>> deltaListeners = new CopyOnWriteArrayList<>();
+  private final AtomicLong version = new AtomicLong();
+  private volatile boolean loaded;
+  // Serializes loads; the board lock is not held while the database is read.
+  private final Object loadMonitor = new Object();
+  // Guarded by the write lock: changes that arrive while a load reads its snapshot, or null when no
+  // load is running. generation moves on with every invalidate, so a load that overlapped one retries.
+  private List<Entry> pendingChanges;
+  private long generation;
+
+  public RankingBoard(RsEventRepository rsEventRepository) {
+    this.rsEventRepository = rsEventRepository;
+  }
+
+  @Override
+  public List<RsEvent> list() {
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return slice(RankOrder.VOTES, 1, entries.size(), RankingBoard::toRsEvent);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<RsEvent> page(int start, int end) {
+    return page(RankOrder.VOTES, start, end);
+  }
+
+  @Override
+  public List<RsEvent> list(RankOrder order) {
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return slice(order, 1, entries.size(), RankingBoard::toRsEvent);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<RsEvent> page(RankOrder order, int start, int end) {
+    if (start < 1 || end < start) {
+      throw new RequestNotValidException("invalid index");
+    }
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return slice(order, start, end, RankingBoard::toRsEvent);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  @Override
+  public void addChangeListener(Runnable listener) {
+    changeListeners.add(listener);
+  }
+
+  /**
+   * Listeners receive the rank deltas of every change, in version order. They are called under the
+   * board's write lock and must not block.
+   */
+  @Override
+  public void addDeltaListener(Consumer<RankChanges> listener) {
+    deltaListeners.add(listener);
+  }
+
+  /** The full ranking tagged with the version of the last change it includes. */
+  @Override
+  public RankSnapshot snapshot() {
+    ensureLoaded();
+    lock.readLock().lock();
+    try {
+      List<Entry> slice = slice(1, entries.size());
+      List<RankedEvent> rankedEvents = new ArrayList<>(slice.size());
+      for (int i = 0; i < slice.size(); i++) {
+        Entry entry = slice.get(i);
+        rankedEvents.add(
+            new RankedEvent(i + 1, entry.id, entry.eventName, entry.keyword, entry.voteNum, entry.boughtRank));
+      }
+      return new RankSnapshot(version.get(), rankedEvents);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void invalidate() {
+    lock.writeLock().lock();
+    try {
+      loaded = false;
+      generation++;
+      clear();
+      publish(RankChanges.resync(version.incrementAndGet()));
+    } finally {
+      lock.writeLock().unlock();
+    }
+    fireChanged();
+  }
+
+  void put(Entry entry) {
+    lock.writeLock().lock();
+    try {
+      if (!loaded) {
+        holdBack(entry);
+        return;
+      }
+      Entry current = entries.get(entry.id);
+      if (current != null && current.isNewerThan(entry)) {
+        return;
+      }
+      publish(replace(entry.id, entry.isDeleted == 0 ? entry : null));
+    } finally {
+      lock.writeLock().unlock();
+    }
+    fireChanged();
+  }
+
+  void remove(int id) {
+    lock.writeLock().lock();
+    try {
+      if (!loaded) {
+        holdBack(Entry.removed(id));
+        return;
+      }
+      publish(replace(id, null));
+    } finally {
+      lock.writeLock().unlock();
+    }
+    fireChanged();
+  }
+
+  // A change the snapshot of a running load may have missed; one that arrives before any load has
+  // started is already committed, so that load's query sees it.
+  private void holdBack(Entry entry) {
+    if (pendingChanges != null) {
+      pendingChanges.add(entry);
+    }
+  }
+
+  private void fireChanged() {
+    changeListeners.forEach(Runnable::run);
+  }
+
+  // Runs under the write lock, so listeners see versions in order; they must only hand changes off.
+  private void publish(RankChanges changes) {
+    if (changes != null) {
+      deltaListeners.forEach(listener -> listener.accept(changes));
+    }
+  }
+
+  // Swaps the entry for id and, when someone listens for deltas, works out which ranks moved. Only
+  // the ranks between the old and the new position can change, unless the event entered, left or
+  // changed between bought and unbought, in which case everything below it may shift.
+  private RankChanges replace(int id, Entry next) {
+    Entry previous = entries.get(id);
+    int oldRank = previous == null ? 0 : rankOf(previous);
+    int oldTotal = entries.size();
+    int oldUnbought = voteIndex.size();
+    long oldSlotMoves = slotMoves;
+    detach(id);
+    if (next != null) {
+      attach(next);
+    }
+    if (deltaListeners.isEmpty()) {
+      return null;
+    }
+    long changeVersion = version.incrementAndGet();
+    int newRank = next == null ? 0 : rankOf(next);
+    if (oldRank == 0 && newRank == 0) {
+      return new RankChanges(changeVersion, Collections.emptyList());
+    }
+    // Handing a slot to another claimant moves that event too, from wherever it stood.
+    boolean slotsMoved = slotMoves != oldSlotMoves;
+    int lo = slotsMoved ? 1 : oldRank == 0 ? newRank : newRank == 0 ? oldRank : Math.min(oldRank, newRank);
+    int hi =
+        oldRank > 0 && newRank > 0 && oldUnbought == voteIndex.size() && !slotsMoved
+            ? Math.max(oldRank, newRank)
+            : Math.max(oldTotal, entries.size());
+    if (hi - lo + 1 > MAX_DELTAS) {
+      return RankChanges.resync(changeVersion);
+    }
+    List<Entry> after = slice(lo, hi);
+    detach(id);
+    if (previous != null) {
+      attach(previous);
+    }
+    List<Entry> before = slice(lo, hi);
+    detach(id);
+    if (next != null) {
+      attach(next);
+    }
+    return new RankChanges(changeVersion, diff(before, after, lo, previous, next));
+  }
+
+  private List<RankDelta> diff(List<Entry> before, List<Entry> after, int lo, Entry previous, Entry next) {
+    Map<Integer, Integer> oldRanks = new HashMap<>();
+    for (int i = 0; i < before.size(); i++) {
+      oldRanks.put(before.get(i).id, lo + i);
+    }
+    List<RankDelta> deltas = new ArrayList<>();
+    for (int i = 0; i < after.size(); i++) {
+      Entry entry = after.get(i);
+      Integer from = oldRanks.remove(entry.id);
+      int to = lo + i;
+      if (entry == next && next.boughtRank > 0 && (previous == null || previous.boughtRank != next.boughtRank)) {
+        deltas.add(RankDelta.of(RankDelta.BOUGHT, entry, from == null ? 0 : from, to));
+      } else if (from == null) {
+        deltas.add(RankDelta.of(RankDelta.ENTERED, entry, 0, to));
+      } else if (from != to || entry == next) {
+        deltas.add(RankDelta.of(RankDelta.MOVED, entry, from, to));
+      }
+    }
+    if (previous != null && oldRanks.containsKey(previous.id)) {
+      deltas.add(RankDelta.of(RankDelta.LEFT, previous, oldRanks.get(previous.id), 0));
+    }
+    return deltas;
+  }
+
+  // Mirrors RankLayout: a slot keeps its rank unless too few unbought events precede it, in which
+  // case it closes up behind them; an unbought event is pushed down by every slot at or above it.
+  private int rankOf(Entry entry) {
+    int unbought = voteIndex.size();
+    if (boughtSlots.get(entry.boughtRank) == entry) {
+      int slotsBefore = boughtSlots.countBelow(entry.boughtRank);
+      int unboughtBefore = entry.boughtRank - 1 - slotsBefore;
+      return unboughtBefore <= unbought ? entry.boughtRank : unbought + slotsBefore + 1;
+    }
+    int rank = voteIndex.indexOf(entry.id, entry.voteNum) + 1;
+    for (int slot = 0; slot < boughtSlots.size() && boughtSlots.rankAt(slot) <= rank; slot++) {
+      rank++;
+    }
+    return rank;
+  }
+
+  // Changes committed while the snapshot is read are held back and replayed onto it; the version
+  // check drops those the snapshot already includes.
+  private void ensureLoaded() {
+    if (loaded) {
+      return;
+    }
+    synchronized (loadMonitor) {
+      while (!loaded) {
+        long started;
+        lock.writeLock().lock();
+        try {
+          started = generation;
+          pendingChanges = new ArrayList<>();
+        } finally {
+          lock.writeLock().unlock();
+        }
+        List<RsEventDto> items;
+        try {
+          items = rsEventRepository.findAllByIsDeletedEquals(0);
+        } catch (RuntimeException e) {
+          lock.writeLock().lock();
+          try {
+            pendingChanges = null;
+          } finally {
+            lock.writeLock().unlock();
+          }
+          throw e;
+        }
+        lock.writeLock().lock();
+        try {
+          if (generation != started) {
+            continue;
+          }
+          clear();
+          items.forEach(item -> attach(Entry.from(item)));
+          for (Entry change : pendingChanges) {
+            Entry current = entries.get(change.id);
+            if (current == null || !current.isNewerThan(change)) {
+              detach(change.id);
+              if (change.isDeleted == 0) {
+                attach(change);
+              }
+            }
+          }
+          pendingChanges = null;
+          loaded = true;
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+    }
+  }
+
+  private void clear() {
+    entries.clear();
+    voteIndex.clear();
+    heatIndex.clear();
+    boughtSlots.clear();
+    claimants.clear();
+  }
+
+  // Of the events claiming one bought rank, the lowest id holds the slot and the rest rank as
+  // unbought. The layout then depends only on which events exist, not on the order updates arrive
+  // in, so a reload rebuilds the same board and detach plus attach undoes a change exactly.
+  private void attach(Entry entry) {
+    entries.put(entry.id, entry);
+    if (entry.boughtRank == 0) {
+      insert(entry);
+      return;
+    }
+    Entry holder = boughtSlots.get(entry.boughtRank);
+    if (holder == null) {
+      boughtSlots.put(entry.boughtRank, entry);
+    } else if (entry.id < holder.id) {
+      boughtSlots.put(entry.boughtRank, entry);
+      insert(holder);
+      claim(holder);
+      slotMoves++;
+    } else {
+      insert(entry);
+      claim(entry);
+    }
+  }
+
+  private void insert(Entry entry) {
+    voteIndex.insert(entry.id, entry.voteNum);
+    heatIndex.insert(entry);
+  }
+
+  private void detach(int id) {
+    Entry previous = entries.remove(id);
+    if (previous == null) {
+      return;
+    }
+    if (boughtSlots.get(previous.boughtRank) == previous) {
+      boughtSlots.remove(previous.boughtRank);
+      Entry next = unclaimFirst(previous.boughtRank);
+      if (next != null) {
+        voteIndex.remove(next.id, next.voteNum);
+        heatIndex.remove(next);
+        boughtSlots.put(next.boughtRank, next);
+        slotMoves++;
+      }
+      return;
+    }
+    if (voteIndex.remove(previous.id, previous.voteNum)) {
+      heatIndex.remove(previous);
+    }
+    if (previous.boughtRank > 0) {
+      unclaim(previous);
+    }
+  }
+
+  private void claim(Entry entry) {
+    List<Entry> waiting = claimants.get(entry.boughtRank);
+    if (waiting == null) {
+      waiting = new ArrayList<>(1);
+      claimants.put(entry.boughtRank, waiting);
+    }
+    waiting.add(entry);
+  }
+
+  private void unclaim(Entry entry) {
+    List<Entry> waiting = claimants.get(entry.boughtRank);
+    if (waiting != null && waiting.remove(entry) && waiting.isEmpty()) {
+      claimants.remove(entry.boughtRank);
+    }
+  }
+
+  private Entry unclaimFirst(int boughtRank) {
+    List<Entry> waiting = claimants.get(boughtRank);
+    if (waiting == null) {
+      return null;
+    }
+    Entry first = waiting.get(0);
+    for (Entry entry : waiting) {
+      if (entry.id < first.id) {
+        first = entry;
+      }
+    }
+    unclaim(first);
+    return first;
+  }
+
+  private List<Entry> slice(int start, int end) {
+    return slice(RankOrder.VOTES, start, end, Function.identity());
+  }
+
+  // Unbought cells of a window are consecutive, so in heat order they come out of one treap range.
+  private <T> List<T> slice(RankOrder order, int start, int end, Function<Entry, T> view) {
+    int[] layout = RankLayout.layout(boughtSlots.ranks(), boughtSlots.size(), voteIndex.size(), start, end);
+    List<Entry> byHeat = null;
+    int firstUnbought = 0;
+    if (order == RankOrder.HEAT) {
+      int lastUnbought = -1;
+      firstUnbought = Integer.MAX_VALUE;
+      for (int cell : layout) {
+        if (!RankLayout.isSlot(cell)) {
+          firstUnbought = Math.min(firstUnbought, cell);
+          lastUnbought = Math.max(lastUnbought, cell);
+        }
+      }
+      byHeat =
+          lastUnbought < 0
+              ? Collections.emptyList()
+              : heatIndex.range(firstUnbought, lastUnbought - firstUnbought + 1);
+    }
+    List<T> result = new ArrayList<>(layout.length);
+    for (int cell : layout) {
+      Entry entry;
+      if (RankLayout.isSlot(cell)) {
+        entry = boughtSlots.valueAt(RankLayout.slotIndex(cell));
+      } else if (byHeat != null) {
+        entry = byHeat.get(cell - firstUnbought);
+      } else {
+        entry = entries.get(voteIndex.idAt(cell));
+      }
+      result.add(view.apply(entry));
+    }
+    return result;
+  }
+
+  private static RsEvent toRsEvent(Entry entry) {
+    return new RsEvent(entry.eventName, entry.keyword, entry.voteNum, entry.id, entry.boughtRank, 0);
+  }
+
+  static final class Entry {
+    final int id;
+    final String eventName;
+    final String keyword;
+    final int voteNum;
+    final int boughtRank;
+    final int isDeleted;
+    final Integer version;
+    final double heat;
+
+    Entry(
+        int id,
+        String eventName,
+        String keyword,
+        int voteNum,
+        int boughtRank,
+        int isDeleted,
+        Integer version,
+        Double heat) {
+      this.id = id;
+      this.eventName = eventName;
+      this.keyword = keyword;
+      this.voteNum = voteNum;
+      this.boughtRank = boughtRank;
+      this.isDeleted = isDeleted;
+      this.version = version;
+      this.heat = heat == null ? Double.NEGATIVE_INFINITY : heat;
+    }
+
+    // Post-commit callbacks of concurrent transactions may arrive out of order.
+    boolean isNewerThan(Entry other) {
+      return version != null && other.version != null && version > other.version;
+    }
+
+    // Stands in for a hard delete among the held-back changes; it always wins over the snapshot row.
+    static Entry removed(int id) {
+      return new Entry(id, null, null, 0, 0, 1, null, null);
+    }
+
+    static Entry from(RsEventDto rsEventDto) {
+      return new Entry(
+          rsEventDto.getId(),
+          rsEventDto.getEventName(),
+          rsEventDto.getKeyword(),
+          rsEventDto.getVoteNum(),
+          rsEventDto.getBoughtRank(),
+          rsEventDto.getIsDeleted(),
+          rsEventDto.getVersion(),
+          rsEventDto.getHeat());
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Feeds committed {@link RsEventDto} writes into the {@link RankingBoard}, whichever code path
+ * (vote, buy, event creation, user deletion) produced them.
+ */
+@Component
+public class RankingBoardSync
+    implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+  private final transient EntityManagerFactory entityManagerFactory;
+  private final transient RankingBoard rankingBoard;
+
+  public RankingBoardSync(EntityManagerFactory entityManagerFactory, RankingBoard rankingBoard) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.rankingBoard = rankingBoard;
+  }
+
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      rankingBoard.put(RankingBoard.Entry.from((RsEventDto) event.getEntity()));
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      rankingBoard.put(RankingBoard.Entry.from((RsEventDto) event.getEntity()));
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      rankingBoard.remove(((RsEventDto) event.getEntity()).getId());
+    }
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return RsEventDto.class.equals(persister.getMappedClass());
+  }
+}
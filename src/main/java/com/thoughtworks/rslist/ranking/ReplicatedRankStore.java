@@ -0,0 +1,266 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RankDeltaDto;
+import com.thoughtworks.rslist.repository.RankDeltaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Rank store for several nodes over one database. Reads are served by the node's own
+ * {@link RankingBoard}. Every rs_event write also writes a rank_delta row in its transaction; each
+ * node polls that table in id order and applies the rows of the other nodes to its board. Rows
+ * carry the entity version, so a row applied late or twice never rolls an event back, and every
+ * board converges on the committed state.
+ *
+ * <p>Identity ids are handed out at insert, not at commit, so a lower id can become visible after
+ * a higher one. The poller stops at a gap and waits up to gap-timeout-ms for it to fill. After that
+ * it moves on but keeps the missing ids and looks them up again on every poll until retention-ms
+ * has passed, so a commit that was merely slow is still applied and only a rollback is given up on.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "rslist.rank-store.mode", havingValue = "replicated")
+public class ReplicatedRankStore implements RankStore {
+  private final RankingBoard rankingBoard;
+  private final RankDeltaRepository rankDeltaRepository;
+  private final EntityManagerFactory entityManagerFactory;
+  private final String nodeId;
+  private final long pollIntervalMs;
+  private final int batchSize;
+  private final long gapTimeoutMs;
+  private final long retentionMs;
+  private ScheduledExecutorService poller;
+  private long watermark;
+  private long gapSince;
+  private long lastPurge;
+  // Ids passed over at an expired gap, oldest first, with the time they were passed over.
+  private final Map<Long, Long> skipped = new LinkedHashMap<>();
+
+  public ReplicatedRankStore(
+      RankingBoard rankingBoard,
+      RankDeltaRepository rankDeltaRepository,
+      EntityManagerFactory entityManagerFactory,
+      @Value("${rslist.rank-store.node-id:}") String nodeId,
+      @Value("${rslist.rank-store.poll-interval-ms:100}") long pollIntervalMs,
+      @Value("${rslist.rank-store.batch-size:500}") int batchSize,
+      @Value("${rslist.rank-store.gap-timeout-ms:2000}") long gapTimeoutMs,
+      @Value("${rslist.rank-store.retention-ms:3600000}") long retentionMs) {
+    this.rankingBoard = rankingBoard;
+    this.rankDeltaRepository = rankDeltaRepository;
+    this.entityManagerFactory = entityManagerFactory;
+    this.nodeId = nodeId.isEmpty() ? UUID.randomUUID().toString() : nodeId;
+    this.pollIntervalMs = pollIntervalMs;
+    this.batchSize = batchSize;
+    this.gapTimeoutMs = gapTimeoutMs;
+    this.retentionMs = retentionMs;
+  }
+
+  @PostConstruct
+  public void start() {
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    RankDeltaOutbox outbox = new RankDeltaOutbox(nodeId);
+    registry.appendListeners(EventType.POST_INSERT, outbox);
+    registry.appendListeners(EventType.POST_UPDATE, outbox);
+    registry.appendListeners(EventType.POST_DELETE, outbox);
+
+    // The board loads the committed state itself; only deltas from now on need replaying.
+    watermark = rankDeltaRepository.findMaxId();
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "rank-delta-poller");
+              thread.setDaemon(true);
+              return thread;
+            });
+    poller.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    poller.shutdown();
+    poller.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  @Override
+  public List<RsEvent> list() {
+    return rankingBoard.list();
+  }
+
+  @Override
+  public List<RsEvent> page(int start, int end) {
+    return rankingBoard.page(start, end);
+  }
+
+  @Override
+  public List<RsEvent> list(RankOrder order) {
+    return rankingBoard.list(order);
+  }
+
+  @Override
+  public List<RsEvent> page(RankOrder order, int start, int end) {
+    return rankingBoard.page(order, start, end);
+  }
+
+  @Override
+  public int size() {
+    return rankingBoard.size();
+  }
+
+  @Override
+  public boolean isLoaded() {
+    return rankingBoard.isLoaded();
+  }
+
+  @Override
+  public void invalidate() {
+    rankingBoard.invalidate();
+  }
+
+  @Override
+  public RankSnapshot snapshot() {
+    return rankingBoard.snapshot();
+  }
+
+  @Override
+  public void addChangeListener(Runnable listener) {
+    rankingBoard.addChangeListener(listener);
+  }
+
+  @Override
+  public void addDeltaListener(Consumer<RankChanges> listener) {
+    rankingBoard.addDeltaListener(listener);
+  }
+
+  /** Applies the rows committed since the last poll; returns how many were consumed. */
+  synchronized int poll() {
+    List<RankDeltaDto> rows =
+        rankDeltaRepository.findByIdGreaterThanOrderByIdAsc(watermark, PageRequest.of(0, batchSize));
+    int consumed = 0;
+    for (RankDeltaDto row : rows) {
+      if (row.getId() != watermark + 1) {
+        if (!gapExpired()) {
+          break;
+        }
+        long now = System.currentTimeMillis();
+        for (long id = watermark + 1; id < row.getId(); id++) {
+          skipped.put(id, now);
+        }
+      }
+      gapSince = 0;
+      watermark = row.getId();
+      consumed++;
+      if (!nodeId.equals(row.getNodeId())) {
+        apply(row);
+      }
+    }
+    recheckSkipped();
+    purge();
+    return consumed;
+  }
+
+  // Looks up to batch-size skipped ids up again; the ones still missing go to the back of the line.
+  private void recheckSkipped() {
+    if (skipped.isEmpty()) {
+      return;
+    }
+    long cutoff = System.currentTimeMillis() - retentionMs;
+    skipped.values().removeIf(since -> since < cutoff);
+    List<Long> ids = new ArrayList<>(Math.min(batchSize, skipped.size()));
+    for (Long id : skipped.keySet()) {
+      if (ids.size() == batchSize) {
+        break;
+      }
+      ids.add(id);
+    }
+    for (RankDeltaDto row : rankDeltaRepository.findAllById(ids)) {
+      skipped.remove(row.getId());
+      if (!nodeId.equals(row.getNodeId())) {
+        apply(row);
+      }
+    }
+    for (Long id : ids) {
+      Long since = skipped.remove(id);
+      if (since != null) {
+        skipped.put(id, since);
+      }
+    }
+  }
+
+  private void pollQuietly() {
+    try {
+      int consumed;
+      do {
+        consumed = poll();
+      } while (consumed == batchSize);
+    } catch (RuntimeException e) {
+      log.error("rank delta poll failed", e);
+    }
+  }
+
+  private boolean gapExpired() {
+    long now = System.currentTimeMillis();
+    if (gapSince == 0) {
+      gapSince = now;
+    }
+    return now - gapSince >= gapTimeoutMs;
+  }
+
+  private void apply(RankDeltaDto row) {
+    if (row.isRemoved()) {
+      rankingBoard.remove(row.getRsEventId());
+      return;
+    }
+    rankingBoard.put(
+        new RankingBoard.Entry(
+            row.getRsEventId(),
+            row.getEventName(),
+            row.getKeyword(),
+            row.getVoteNum(),
+            row.getBoughtRank(),
+            row.getIsDeleted(),
+            row.getVersion(),
+            row.getHeat()));
+  }
+
+  // Every node purges; the delete is idempotent and rows older than the retention are long applied.
+  private void purge() {
+    long now = System.currentTimeMillis();
+    if (now - lastPurge < retentionMs / 10) {
+      return;
+    }
+    lastPurge = now;
+    rankDeltaRepository.deleteCreatedBefore(LocalDateTime.now().minus(retentionMs, ChronoUnit.MILLIS));
+  }
+}
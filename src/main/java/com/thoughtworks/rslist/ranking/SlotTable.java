@@ -0,0 +1,83 @@
+package com.thoughtworks.rslist.ranking;
+
+import java.util.Arrays;
+
+/**
+ * Bought ranks in ascending order with the value holding each, as a sorted int array and a
+ * parallel value array. The rank array is handed to {@link RankLayout} as is, without copying.
+ */
+final class SlotTable<V> {
+  private int[] ranks = new int[8];
+  private Object[] values = new Object[8];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  /** The backing rank array; only the first {@link #size()} ranks are in use. */
+  int[] ranks() {
+    return ranks;
+  }
+
+  int rankAt(int index) {
+    return ranks[index];
+  }
+
+  @SuppressWarnings("unchecked")
+  V valueAt(int index) {
+    return (V) values[index];
+  }
+
+  boolean contains(int rank) {
+    return search(rank) >= 0;
+  }
+
+  V get(int rank) {
+    int index = search(rank);
+    return index < 0 ? null : valueAt(index);
+  }
+
+  /** How many slots have a rank below the given one. */
+  int countBelow(int rank) {
+    int index = search(rank);
+    return index < 0 ? -index - 1 : index;
+  }
+
+  void put(int rank, V value) {
+    int index = search(rank);
+    if (index >= 0) {
+      values[index] = value;
+      return;
+    }
+    index = -index - 1;
+    if (size == ranks.length) {
+      ranks = Arrays.copyOf(ranks, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    System.arraycopy(ranks, index, ranks, index + 1, size - index);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    ranks[index] = rank;
+    values[index] = value;
+    size++;
+  }
+
+  void remove(int rank) {
+    int index = search(rank);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(ranks, index + 1, ranks, index, size - index - 1);
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    values[--size] = null;
+  }
+
+  void clear() {
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+  }
+
+  private int search(int rank) {
+    return Arrays.binarySearch(ranks, 0, size, rank);
+  }
+}
@@ -0,0 +1,166 @@
+package com.thoughtworks.rslist.ranking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Votes per event over a sliding window, kept in memory. Each event owns a ring of fixed-size
+ * buckets (one int each) that is recycled as time moves on, so an event costs the same few hundred
+ * bytes however many votes it gets, and events idle for a whole window are dropped, on the first
+ * vote of each bucket as well as by {@link #top}. The top K over the last N minutes is picked with a
+ * heap of at most K entries.
+ */
+@Component
+public class TrendingCounters {
+  private static final Comparator<Trend> BY_VOTES =
+      Comparator.comparingLong((Trend trend) -> trend.votes).thenComparing(trend -> -trend.rsEventId);
+
+  private final int buckets;
+  private final long bucketMs;
+  private final LongSupplier clock;
+  private final Map<Integer, Ring> rings = new ConcurrentHashMap<>();
+  private final AtomicLong sweptBucket = new AtomicLong();
+
+  public TrendingCounters(
+      @Value("${rslist.trending.window-minutes:60}") int windowMinutes,
+      @Value("${rslist.trending.buckets:60}") int buckets) {
+    this(windowMinutes, buckets, System::currentTimeMillis);
+  }
+
+  TrendingCounters(int windowMinutes, int buckets, LongSupplier clock) {
+    this.buckets = buckets;
+    this.bucketMs = windowMinutes * 60_000L / buckets;
+    this.clock = clock;
+  }
+
+  public int getWindowMinutes() {
+    return (int) (buckets * bucketMs / 60_000);
+  }
+
+  public void record(int rsEventId, int voteNum) {
+    long bucket = clock.getAsLong() / bucketMs;
+    long swept = sweptBucket.get();
+    if (bucket > swept && sweptBucket.compareAndSet(swept, bucket)) {
+      evictIdle(bucket);
+    }
+    // A ring retired by an eviction between the lookup and the add is already out of the map.
+    while (true) {
+      Ring ring = rings.computeIfAbsent(rsEventId, id -> new Ring(buckets));
+      if (ring.add(bucket, voteNum)) {
+        return;
+      }
+      rings.remove(rsEventId, ring);
+    }
+  }
+
+  public void forget(int rsEventId) {
+    rings.remove(rsEventId);
+  }
+
+  /** The k events with most votes in the last minutes, most voted first. */
+  public List<Trend> top(int k, int minutes) {
+    long now = clock.getAsLong() / bucketMs;
+    int span = (int) Math.min(buckets, Math.max(1, (minutes * 60_000L + bucketMs - 1) / bucketMs));
+    PriorityQueue<Trend> heap = new PriorityQueue<>(k + 1, BY_VOTES);
+    for (Map.Entry<Integer, Ring> entry : rings.entrySet()) {
+      Ring ring = entry.getValue();
+      if (ring.retireIfIdle(now)) {
+        rings.remove(entry.getKey(), ring);
+        continue;
+      }
+      long votes = ring.sum(now, span);
+      if (votes == 0) {
+        continue;
+      }
+      if (heap.size() < k) {
+        heap.add(new Trend(entry.getKey(), votes));
+      } else if (BY_VOTES.compare(new Trend(entry.getKey(), votes), heap.peek()) > 0) {
+        heap.poll();
+        heap.add(new Trend(entry.getKey(), votes));
+      }
+    }
+    List<Trend> top = new ArrayList<>(heap);
+    top.sort(Collections.reverseOrder(BY_VOTES));
+    return top;
+  }
+
+  private void evictIdle(long now) {
+    for (Map.Entry<Integer, Ring> entry : rings.entrySet()) {
+      if (entry.getValue().retireIfIdle(now)) {
+        rings.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  int size() {
+    return rings.size();
+  }
+
+  public static final class Trend {
+    public final int rsEventId;
+    public final long votes;
+
+    Trend(int rsEventId, long votes) {
+      this.rsEventId = rsEventId;
+      this.votes = votes;
+    }
+  }
+
+  // Slot bucket % length holds the votes of that bucket while it is within length of head.
+  private static final class Ring {
+    private final int[] counts;
+    private long head = Long.MIN_VALUE;
+    private boolean retired;
+
+    Ring(int length) {
+      counts = new int[length];
+    }
+
+    // False once the ring has been evicted; the caller then adds to a fresh one.
+    synchronized boolean add(long bucket, int voteNum) {
+      if (retired) {
+        return false;
+      }
+      if (head == Long.MIN_VALUE || bucket - head >= counts.length) {
+        Arrays.fill(counts, 0);
+        head = bucket;
+      } else if (bucket > head) {
+        for (long stale = head + 1; stale <= bucket; stale++) {
+          counts[(int) (stale % counts.length)] = 0;
+        }
+        head = bucket;
+      } else if (head - bucket >= counts.length) {
+        return true;
+      }
+      counts[(int) (bucket % counts.length)] += voteNum;
+      return true;
+    }
+
+    synchronized long sum(long now, int span) {
+      long from = Math.max(now - span + 1, head - counts.length + 1);
+      long sum = 0;
+      for (long bucket = from; bucket <= Math.min(now, head); bucket++) {
+        sum += counts[(int) (bucket % counts.length)];
+      }
+      return sum;
+    }
+
+    synchronized boolean retireIfIdle(long now) {
+      if (head != Long.MIN_VALUE && now - head >= counts.length) {
+        retired = true;
+      }
+      return retired;
+    }
+  }
+}
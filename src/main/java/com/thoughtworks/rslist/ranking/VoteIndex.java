@@ -0,0 +1,81 @@
+package com.thoughtworks.rslist.ranking;
+
+import java.util.Arrays;
+
+/**
+ * Unbought events in vote order, most votes first and then lowest id, kept as two parallel int
+ * arrays. Searching compares primitives directly and moving an event shifts ints, not references.
+ */
+final class VoteIndex {
+  private int[] ids = new int[16];
+  private int[] voteNums = new int[16];
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  int idAt(int index) {
+    return ids[index];
+  }
+
+  int voteNumAt(int index) {
+    return voteNums[index];
+  }
+
+  /** The position of the event, or -(insertion point) - 1 when it is not indexed. */
+  int indexOf(int id, int voteNum) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int order = compare(voteNums[middle], ids[middle], voteNum, id);
+      if (order < 0) {
+        low = middle + 1;
+      } else if (order > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  void insert(int id, int voteNum) {
+    int position = indexOf(id, voteNum);
+    if (position < 0) {
+      position = -position - 1;
+    }
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, size * 2);
+      voteNums = Arrays.copyOf(voteNums, size * 2);
+    }
+    System.arraycopy(ids, position, ids, position + 1, size - position);
+    System.arraycopy(voteNums, position, voteNums, position + 1, size - position);
+    ids[position] = id;
+    voteNums[position] = voteNum;
+    size++;
+  }
+
+  boolean remove(int id, int voteNum) {
+    int position = indexOf(id, voteNum);
+    if (position < 0) {
+      return false;
+    }
+    System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+    System.arraycopy(voteNums, position + 1, voteNums, position, size - position - 1);
+    size--;
+    return true;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  private static int compare(int voteNum, int id, int otherVoteNum, int otherId) {
+    if (voteNum != otherVoteNum) {
+      return voteNum > otherVoteNum ? -1 : 1;
+    }
+    return Integer.compare(id, otherId);
+  }
+}
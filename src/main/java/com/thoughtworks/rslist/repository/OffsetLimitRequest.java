@@ -0,0 +1,83 @@
+package com.thoughtworks.rslist.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Objects;
+
+/** A {@link Pageable} addressed by row offset rather than page number. */
+public class OffsetLimitRequest implements Pageable {
+  private final long offset;
+  private final int limit;
+  private final Sort sort;
+
+  public OffsetLimitRequest(long offset, int limit) {
+    this(offset, limit, Sort.unsorted());
+  }
+
+  public OffsetLimitRequest(long offset, int limit, Sort sort) {
+    if (offset < 0 || limit < 1) {
+      throw new IllegalArgumentException("offset must not be negative and limit must be positive");
+    }
+    this.offset = offset;
+    this.limit = limit;
+    this.sort = sort;
+  }
+
+  @Override
+  public int getPageNumber() {
+    return (int) (offset / limit);
+  }
+
+  @Override
+  public int getPageSize() {
+    return limit;
+  }
+
+  @Override
+  public long getOffset() {
+    return offset;
+  }
+
+  @Override
+  public Sort getSort() {
+    return sort;
+  }
+
+  @Override
+  public Pageable next() {
+    return new OffsetLimitRequest(offset + limit, limit, sort);
+  }
+
+  @Override
+  public Pageable previousOrFirst() {
+    return hasPrevious() ? new OffsetLimitRequest(Math.max(0, offset - limit), limit, sort) : first();
+  }
+
+  @Override
+  public Pageable first() {
+    return new OffsetLimitRequest(0, limit, sort);
+  }
+
+  @Override
+  public boolean hasPrevious() {
+    return offset > 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof OffsetLimitRequest)) {
+      return false;
+    }
+    OffsetLimitRequest that = (OffsetLimitRequest) o;
+    return offset == that.offset && limit == that.limit && sort.equals(that.sort);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(offset, limit, sort);
+  }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends CrudRepository<OutboxEventDto, Long> {
+  /** The oldest records, locked so that a relay on another node waits until this batch is gone. */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select e from OutboxEventDto e order by e.id")
+  List<OutboxEventDto> lockOldest(Pageable limit);
+
+  @Modifying
+  @Query("delete from OutboxEventDto e where e.id in :ids")
+  int deleteByIds(@Param("ids") Collection<Long> ids);
+}
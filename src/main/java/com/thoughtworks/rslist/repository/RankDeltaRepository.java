@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RankDeltaDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RankDeltaRepository extends CrudRepository<RankDeltaDto, Long> {
+  List<RankDeltaDto> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @Query("select coalesce(max(d.id), 0) from RankDeltaDto d")
+  long findMaxId();
+
+  @Transactional
+  @Modifying
+  @Query("delete from RankDeltaDto d where d.createdAt < :cutoff")
+  int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
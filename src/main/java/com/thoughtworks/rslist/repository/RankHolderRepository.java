@@ -0,0 +1,12 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.RankHolderDto;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Optional;
+
+public interface RankHolderRepository extends CrudRepository<RankHolderDto, Integer> {
+  @EntityGraph(attributePaths = "rsEvent")
+  Optional<RankHolderDto> findById(Integer rank);
+}
@@ -1,15 +1,39 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.dto.RsEventDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface RsEventRepository extends CrudRepository<RsEventDto, Integer> {
+  @EntityGraph(attributePaths = "user")
   List<RsEventDto> findAll();
+  List<RsEventDto> findAllByIsDeletedEquals(int isDeleted);
   List<RsEventDto> findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDesc(int isDeleted,int boughtRank);
   List<RsEventDto> findAllByIsDeletedEqualsAndBoughtRankNot(int isDeleted,int boughtRank);
+  List<RsEventDto> findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(int isDeleted, int boughtRank, Pageable pageable);
+  List<RsEventDto> findAllByIsDeletedEqualsAndBoughtRankIn(int isDeleted, Collection<Integer> boughtRanks);
+  long countByIsDeletedEqualsAndBoughtRankEquals(int isDeleted, int boughtRank);
+  @Query("select e.boughtRank from RsEventDto e where e.isDeleted = 0 and e.boughtRank > 0 order by e.boughtRank")
+  List<Integer> findBoughtRanks();
+  @Query("select new com.thoughtworks.rslist.domain.RsEvent(e.eventName, e.keyword, e.voteNum, e.id, e.boughtRank, e.isDeleted) "
+      + "from RsEventDto e where e.isDeleted = 0 and e.boughtRank > 0 order by e.boughtRank, e.id")
+  List<RsEvent> findBoughtRsEvents();
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+  @Query("select new com.thoughtworks.rslist.domain.RsEvent(e.eventName, e.keyword, e.voteNum, e.id, e.boughtRank, e.isDeleted) "
+      + "from RsEventDto e where e.isDeleted = 0 and e.boughtRank = 0 order by e.voteNum desc, e.id")
+  Stream<RsEvent> streamUnboughtRsEvents();
   @Transactional
   void deleteAllByUserId(int userId);
 }
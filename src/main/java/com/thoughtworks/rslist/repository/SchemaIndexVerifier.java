@@ -0,0 +1,134 @@
+package com.thoughtworks.rslist.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks once the application is up that the indexes the V2 migration created for the hot repository
+ * queries exist, and runs EXPLAIN on those queries to see whether the planner picks them. With
+ * rslist.schema.index-check set to fail a missing index stops startup; with warn it is logged; off
+ * skips the check. A plan that passes over an existing index is only ever logged, since MySQL scans
+ * empty or tiny tables whatever indexes they have. Only MySQL is inspected.
+ */
+@Slf4j
+@Component
+public class SchemaIndexVerifier {
+  static final Map<String, String> CHECKS = new LinkedHashMap<>();
+  // The table each checked index belongs to.
+  static final Map<String, String> TABLES = new LinkedHashMap<>();
+
+  static {
+    CHECKS.put(
+        "select id from rs_event where is_deleted = 0 and bought_rank = 0 order by vote_num desc, id limit 20",
+        "idx_rs_event_rank");
+    CHECKS.put("select count(*) from rs_event where is_deleted = 0 and bought_rank = 0", "idx_rs_event_rank");
+    CHECKS.put(
+        "select bought_rank from rs_event where is_deleted = 0 and bought_rank > 0 order by bought_rank",
+        "idx_rs_event_rank");
+    CHECKS.put("select * from trade where rank = 1", "idx_trade_rank_amount");
+    CHECKS.put(
+        "select id from vote where user_id = 1 and rs_event_id = 1 order by local_date_time, id limit 5",
+        "idx_vote_user_event_time");
+    TABLES.put("idx_rs_event_rank", "rs_event");
+    TABLES.put("idx_trade_rank_amount", "trade");
+    TABLES.put("idx_vote_user_event_time", "vote");
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String mode;
+
+  public SchemaIndexVerifier(JdbcTemplate jdbcTemplate, @Value("${rslist.schema.index-check:warn}") String mode) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.mode = mode;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void verify() {
+    if ("off".equals(mode) || !isMySql()) {
+      return;
+    }
+    List<String> missing = new ArrayList<>();
+    TABLES.forEach(
+        (index, table) -> {
+          if (!exists(table, index)) {
+            missing.add(index + " on " + table);
+          }
+        });
+    if (!missing.isEmpty()) {
+      if ("fail".equals(mode)) {
+        throw new IllegalStateException("indexes are missing: " + missing);
+      }
+      log.warn("indexes are missing: {}", missing);
+      return;
+    }
+    List<String> bypassed = new ArrayList<>();
+    CHECKS.forEach(
+        (sql, index) -> {
+          if (!usesIndex(sql, index)) {
+            bypassed.add(index + " for [" + sql + "]");
+          }
+        });
+    if (bypassed.isEmpty()) {
+      log.info("schema index check passed for {} queries", CHECKS.size());
+      return;
+    }
+    log.warn("planner passes over existing indexes, expected on small tables: {}", bypassed);
+  }
+
+  private boolean exists(String table, String index) {
+    Integer columns =
+        jdbcTemplate.queryForObject(
+            "select count(*) from information_schema.statistics "
+                + "where table_schema = database() and table_name = ? and index_name = ?",
+            Integer.class,
+            table,
+            index);
+    return columns != null && columns > 0;
+  }
+
+  // Only the key the planner actually chose counts: possible_keys lists candidates it may still reject
+  // for a scan.
+  private boolean usesIndex(String sql, String index) {
+    for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql)) {
+      if (contains(row.get("key"), index)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean contains(Object keys, String index) {
+    if (keys == null) {
+      return false;
+    }
+    for (String key : keys.toString().split(",")) {
+      if (key.trim().equalsIgnoreCase(index)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isMySql() {
+    try {
+      Object product =
+          JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+      return "MySQL".equalsIgnoreCase(String.valueOf(product));
+    } catch (MetaDataAccessException e) {
+      log.warn("schema index check skipped: {}", e.getMessage());
+      return false;
+    }
+  }
+}
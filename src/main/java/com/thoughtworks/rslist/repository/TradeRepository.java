@@ -2,11 +2,14 @@ package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.dto.TradeDto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.List;
 
 public interface TradeRepository extends CrudRepository<TradeDto,Integer> {
+    @EntityGraph(attributePaths = "rsEventDto")
     List<TradeDto> findAll();
+    @EntityGraph(attributePaths = "rsEventDto")
     List<TradeDto> findAllByRank(Integer rank);
 }
@@ -0,0 +1,6 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.dto.VoteDeadLetterDto;
+import org.springframework.data.repository.CrudRepository;
+
+public interface VoteDeadLetterRepository extends CrudRepository<VoteDeadLetterDto, Long> {}
@@ -0,0 +1,22 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.domain.Vote;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/** A vote row as read by the keyset queries: the vote plus the id that breaks timestamp ties. */
+@Data
+@AllArgsConstructor
+public class VoteRecord {
+  private int id;
+  private int userId;
+  private int rsEventId;
+  private LocalDateTime time;
+  private int voteNum;
+
+  public Vote toVote() {
+    return Vote.builder().userId(userId).rsEventId(rsEventId).time(time).voteNum(voteNum).build();
+  }
+}
@@ -1,12 +1,39 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.VoteDto;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface VoteRepository extends PagingAndSortingRepository<VoteDto, Integer> {
+    @EntityGraph(attributePaths = {"user", "rsEvent"})
     List<VoteDto> findAll();
-    List<VoteDto> findAllByUserIdAndRsEventId(int userId, int rsEventId, Pageable pageable);
+    @Query("select new com.thoughtworks.rslist.domain.Vote(v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where v.user.id = :userId and v.rsEvent.id = :rsEventId")
+    List<Vote> findVoteRecords(@Param("userId") int userId, @Param("rsEventId") int rsEventId, Pageable pageable);
+    @Query("select new com.thoughtworks.rslist.repository.VoteRecord(v.id, v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where v.user.id = :userId and v.rsEvent.id = :rsEventId "
+            + "order by v.localDateTime, v.id")
+    List<VoteRecord> findFirstVoteRecords(@Param("userId") int userId, @Param("rsEventId") int rsEventId, Pageable limit);
+    @Query("select new com.thoughtworks.rslist.repository.VoteRecord(v.id, v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v where v.user.id = :userId and v.rsEvent.id = :rsEventId "
+            + "and (v.localDateTime > :time or (v.localDateTime = :time and v.id > :id)) "
+            + "order by v.localDateTime, v.id")
+    List<VoteRecord> findVoteRecordsAfter(@Param("userId") int userId, @Param("rsEventId") int rsEventId,
+                                          @Param("time") LocalDateTime time, @Param("id") int id, Pageable limit);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.thoughtworks.rslist.repository.VoteRecord(v.id, v.user.id, v.rsEvent.id, v.localDateTime, v.num) "
+            + "from VoteDto v order by v.id")
+    Stream<VoteRecord> streamVoteRecords();
 }
@@ -0,0 +1,213 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.dto.RankHolderDto;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.TradeDto;
+import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.repository.RankHolderRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the winning bid of every rank in memory, backed by the {@link RankHolderDto} table. Losing
+ * bids are rejected without taking a lock or touching the database; a candidate winner locks only
+ * the ranks it affects, so bids on different ranks run in parallel, and only winners are persisted.
+ * Ranks above {@code rslist.bid.max-rank} are refused, which bounds the bids kept in memory.
+ */
+@Component
+public class BidBook {
+  private static final Bid NO_BID = new Bid(0, 0);
+
+  private final RsEventRepository rsEventRepository;
+  private final TradeRepository tradeRepository;
+  private final RankHolderRepository rankHolderRepository;
+  private final StripedLocks stripedLocks;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private final Counter bidsWon;
+  private final Counter bidsLost;
+  private final int maxRank;
+  private final Map<Integer, Bid> bids = new ConcurrentHashMap<>();
+  // Moves on before every forget, so a holder row read around one is not cached.
+  private final AtomicLong forgets = new AtomicLong();
+
+  public BidBook(
+      RsEventRepository rsEventRepository,
+      TradeRepository tradeRepository,
+      RankHolderRepository rankHolderRepository,
+      StripedLocks stripedLocks,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${rslist.bid.max-rank:1000}") int maxRank) {
+    this.rsEventRepository = rsEventRepository;
+    this.tradeRepository = tradeRepository;
+    this.rankHolderRepository = rankHolderRepository;
+    this.stripedLocks = stripedLocks;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate.setReadOnly(true);
+    this.bidsWon = meterRegistry.counter("rslist.bids", "result", "won");
+    this.bidsLost = meterRegistry.counter("rslist.bids", "result", "lost");
+    this.maxRank = maxRank;
+  }
+
+  public void bid(Trade trade, int rsEventId) {
+    int rank = trade.getRank();
+    if (rank < 1 || rank > maxRank) {
+      throw new RequestNotValidException("invalid rank");
+    }
+    while (true) {
+      // The unlocked pre-check reads share one read-only transaction, so one connection. The event
+      // is checked first, so only bids on existing events reach the bid cache.
+      int heldRank =
+          readOnlyTransactionTemplate.execute(
+              status -> {
+                int boughtRank =
+                    rsEventRepository
+                        .findById(rsEventId)
+                        .orElseThrow(() -> new RequestNotValidException("invalid id"))
+                        .getBoughtRank();
+                checkAmount(trade, currentBid(rank), rsEventId);
+                return boughtRank;
+              });
+      List<Integer> ranks = heldRank > 0 ? Arrays.asList(rank, heldRank) : Collections.singletonList(rank);
+      if (stripedLocks.withRankLocks(ranks, () -> bidLocked(trade, rsEventId, heldRank))) {
+        return;
+      }
+    }
+  }
+
+  // Runs under the rank locks; false sends the caller back to choose them again.
+  private boolean bidLocked(Trade trade, int rsEventId, int heldRank) {
+    int rank = trade.getRank();
+    Bid current = currentBid(rank);
+    checkAmount(trade, current, rsEventId);
+    List<Integer> rsEventIds =
+        current == NO_BID ? Collections.singletonList(rsEventId) : Arrays.asList(rsEventId, current.rsEventId);
+    boolean won;
+    try {
+      won =
+          stripedLocks.withLocks(
+              Collections.emptyList(),
+              rsEventIds,
+              () -> OptimisticRetry.execute(transactionTemplate, status -> persist(trade, rsEventId, heldRank)));
+    } catch (AmountNotEnoughException e) {
+      bidsLost.increment();
+      forget(rank);
+      throw e;
+    }
+    if (!won) {
+      return false;
+    }
+    bids.put(rank, new Bid(rsEventId, trade.getAmount()));
+    if (heldRank > 0 && heldRank != rank) {
+      bids.put(heldRank, NO_BID);
+    }
+    bidsWon.increment();
+    return true;
+  }
+
+  void forget(int rank, int rsEventId) {
+    forgets.incrementAndGet();
+    bids.computeIfPresent(rank, (key, bid) -> bid.rsEventId == rsEventId ? null : bid);
+  }
+
+  void forget(int rank) {
+    forgets.incrementAndGet();
+    bids.remove(rank);
+  }
+
+  // A holder bidding on its own rank re-prices it instead of competing with itself, so it does not
+  // have to outbid its own amount.
+  private void checkAmount(Trade trade, Bid current, int rsEventId) {
+    if (current != NO_BID && current.rsEventId != rsEventId && trade.getAmount() <= current.amount) {
+      bidsLost.increment();
+      throw new AmountNotEnoughException("amount not enough");
+    }
+  }
+
+  // Cached bids cost nothing; a miss reads the holder row in a read-only transaction, joining the
+  // caller's when there is one. The read stays outside the map's locks, and a bid that raced with a
+  // forget is handed back without being kept; a winner's bid is never overwritten.
+  private Bid currentBid(int rank) {
+    Bid bid = bids.get(rank);
+    if (bid != null) {
+      return bid;
+    }
+    long seen = forgets.get();
+    Bid loaded =
+        readOnlyTransactionTemplate.execute(
+            status ->
+                rankHolderRepository
+                    .findById(rank)
+                    .map(holder -> new Bid(holder.getRsEvent().getId(), holder.getAmount()))
+                    .orElse(NO_BID));
+    Bid cached = bids.putIfAbsent(rank, loaded);
+    if (cached != null) {
+      return cached;
+    }
+    if (forgets.get() != seen) {
+      bids.remove(rank, loaded);
+    }
+    return loaded;
+  }
+
+  // The holder row is the source of truth: the in-memory bid may be stale if another node won.
+  // Returns false when the bidding event moved to another rank since its locks were chosen.
+  private boolean persist(Trade trade, int rsEventId, int heldRank) {
+    RsEventDto rsEventDto =
+        rsEventRepository.findById(rsEventId).orElseThrow(() -> new RequestNotValidException("invalid id"));
+    if (rsEventDto.getBoughtRank() != heldRank) {
+      return false;
+    }
+    Optional<RankHolderDto> current = rankHolderRepository.findById(trade.getRank());
+    if (current.isPresent()
+        && current.get().getRsEvent().getId() != rsEventId
+        && trade.getAmount() <= current.get().getAmount()) {
+      throw new AmountNotEnoughException("amount not enough");
+    }
+    RankHolderDto holder = current.orElseGet(() -> RankHolderDto.builder().rank(trade.getRank()).build());
+    if (holder.getRsEvent() != null && holder.getRsEvent().getId() != rsEventId) {
+      RsEventDto previous = holder.getRsEvent();
+      previous.setIsDeleted(1);
+      rsEventRepository.save(previous);
+    }
+    if (heldRank > 0 && heldRank != trade.getRank()) {
+      rankHolderRepository.findById(heldRank).ifPresent(rankHolderRepository::delete);
+    }
+    rsEventDto.setBoughtRank(trade.getRank());
+    rsEventRepository.save(rsEventDto);
+    holder.setAmount(trade.getAmount());
+    holder.setRsEvent(rsEventDto);
+    rankHolderRepository.save(holder);
+    tradeRepository.save(
+        TradeDto.builder().amount(trade.getAmount()).rank(trade.getRank()).rsEventDto(rsEventDto).build());
+    return true;
+  }
+
+  private static final class Bid {
+    final int rsEventId;
+    final double amount;
+
+    Bid(int rsEventId, double amount) {
+      this.rsEventId = rsEventId;
+      this.amount = amount;
+    }
+  }
+}
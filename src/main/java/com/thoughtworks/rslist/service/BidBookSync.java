@@ -0,0 +1,72 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Drops a rank from the {@link BidBook} when its holder disappears through any path other than a
+ * bid, so the rank is re-read from the holder table on the next bid.
+ */
+@Component
+public class BidBookSync implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+  private final transient EntityManagerFactory entityManagerFactory;
+  private final transient BidBook bidBook;
+
+  public BidBookSync(EntityManagerFactory entityManagerFactory, BidBook bidBook) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.bidBook = bidBook;
+  }
+
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      RsEventDto rsEventDto = (RsEventDto) event.getEntity();
+      if (rsEventDto.getIsDeleted() != 0 && rsEventDto.getBoughtRank() > 0) {
+        bidBook.forget(rsEventDto.getBoughtRank(), rsEventDto.getId());
+      }
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof RsEventDto) {
+      RsEventDto rsEventDto = (RsEventDto) event.getEntity();
+      if (rsEventDto.getBoughtRank() > 0) {
+        bidBook.forget(rsEventDto.getBoughtRank(), rsEventDto.getId());
+      }
+    }
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return RsEventDto.class.equals(persister.getMappedClass());
+  }
+}
@@ -0,0 +1,147 @@
+package com.thoughtworks.rslist.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.VoteRecord;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Writes the ranked list and the vote history as newline-delimited JSON straight from forward-only
+ * database cursors. Rows are read as unmanaged projections, so memory stays flat however large the
+ * tables grow.
+ */
+@Service
+public class ExportService {
+  private static final int NEWLINE = '\n';
+  // The projections carry the event id in userId.
+  private static final Comparator<RsEvent> VOTE_ORDER =
+      Comparator.comparingInt(RsEvent::getVoteNum).reversed().thenComparingInt(RsEvent::getUserId);
+
+  private final RsEventRepository rsEventRepository;
+  private final VoteRepository voteRepository;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+
+  public ExportService(
+      RsEventRepository rsEventRepository,
+      VoteRepository voteRepository,
+      ObjectMapper objectMapper,
+      PlatformTransactionManager transactionManager) {
+    this.rsEventRepository = rsEventRepository;
+    this.voteRepository = voteRepository;
+    this.objectMapper = objectMapper;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+  }
+
+  // Same order as /rs/list: bought events hold their rank, unbought ones fill the gaps by votes, and
+  // bought ranks beyond the end close up behind the last unbought event. Of several events bought at
+  // the same rank the lowest id holds it and the others rank by votes, as on the ranking board.
+  public void exportRankedList(OutputStream out) throws IOException {
+    inTransaction(
+        () -> {
+          Deque<RsEvent> slots = new ArrayDeque<>();
+          List<RsEvent> claimants = new ArrayList<>();
+          for (RsEvent rsEvent : rsEventRepository.findBoughtRsEvents()) {
+            if (slots.isEmpty() || slots.peekLast().getBoughtRank() != rsEvent.getBoughtRank()) {
+              slots.addLast(rsEvent);
+            } else {
+              claimants.add(rsEvent);
+            }
+          }
+          claimants.sort(VOTE_ORDER);
+          try (Stream<RsEvent> unbought = rsEventRepository.streamUnboughtRsEvents()) {
+            Iterator<RsEvent> iterator = new VoteOrderMerge(unbought.iterator(), claimants.iterator());
+            for (int rank = 1; iterator.hasNext(); rank++) {
+              boolean slotTaken = !slots.isEmpty() && slots.peekFirst().getBoughtRank() == rank;
+              writeLine(out, slotTaken ? slots.pollFirst() : iterator.next());
+            }
+          }
+          for (RsEvent rsEvent : slots) {
+            writeLine(out, rsEvent);
+          }
+        });
+  }
+
+  public void exportVotes(OutputStream out) throws IOException {
+    inTransaction(
+        () -> {
+          try (Stream<VoteRecord> votes = voteRepository.streamVoteRecords()) {
+            votes.forEach(record -> writeLine(out, record.toVote()));
+          }
+        });
+  }
+
+  private void inTransaction(Runnable export) throws IOException {
+    try {
+      transactionTemplate.execute(
+          status -> {
+            export.run();
+            return null;
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void writeLine(OutputStream out, Object value) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(value));
+      out.write(NEWLINE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Merges two iterators that are each already in vote order. */
+  private static class VoteOrderMerge implements Iterator<RsEvent> {
+    private final Iterator<RsEvent> left;
+    private final Iterator<RsEvent> right;
+    private RsEvent leftHead;
+    private RsEvent rightHead;
+
+    VoteOrderMerge(Iterator<RsEvent> left, Iterator<RsEvent> right) {
+      this.left = left;
+      this.right = right;
+      this.leftHead = left.hasNext() ? left.next() : null;
+      this.rightHead = right.hasNext() ? right.next() : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return leftHead != null || rightHead != null;
+    }
+
+    @Override
+    public RsEvent next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      RsEvent next;
+      if (rightHead == null || (leftHead != null && VOTE_ORDER.compare(leftHead, rightHead) <= 0)) {
+        next = leftHead;
+        leftHead = left.hasNext() ? left.next() : null;
+      } else {
+        next = rightHead;
+        rightHead = right.hasNext() ? right.next() : null;
+      }
+      return next;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Re-runs a transaction that lost an optimistic version check against a concurrent writer. */
+public final class OptimisticRetry {
+  public static final int DEFAULT_ATTEMPTS = 3;
+
+  private OptimisticRetry() {}
+
+  public static <T> T execute(TransactionTemplate transactionTemplate, TransactionCallback<T> callback) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return transactionTemplate.execute(callback);
+      } catch (OptimisticLockingFailureException e) {
+        if (attempt >= DEFAULT_ATTEMPTS) {
+          throw e;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.exception.ServiceBusyException;
+import com.thoughtworks.rslist.metrics.QueryCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the database work of async endpoints off the servlet threads. At most threads + queue-capacity
+ * requests are admitted at once; beyond that a request is shed with {@link ServiceBusyException}
+ * before any work starts. With virtual-threads enabled on a JDK that has them, each request gets a
+ * virtual thread and only the admission limit applies. Statements a task issues count towards the
+ * query count of the request that submitted it.
+ */
+@Slf4j
+@Component
+public class RequestExecutor {
+  private final QueryCounter queryCounter;
+  private final ExecutorService executor;
+  private final Semaphore admissions;
+
+  public RequestExecutor(
+      QueryCounter queryCounter,
+      @Value("${rslist.async.threads:32}") int threads,
+      @Value("${rslist.async.queue-capacity:1000}") int queueCapacity,
+      @Value("${rslist.async.virtual-threads:false}") boolean virtualThreads) {
+    this.queryCounter = queryCounter;
+    ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+    this.executor = virtual != null ? virtual : newPlatformThreadExecutor(threads);
+    this.admissions = new Semaphore(threads + queueCapacity);
+  }
+
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    if (!admissions.tryAcquire()) {
+      throw new ServiceBusyException("too many requests in flight");
+    }
+    try {
+      return CompletableFuture.supplyAsync(queryCounter.propagate(task), executor).whenComplete((result, error) -> admissions.release());
+    } catch (RuntimeException e) {
+      admissions.release();
+      throw new ServiceBusyException("request executor is shut down");
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private static ExecutorService newPlatformThreadExecutor(int threads) {
+    AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        threads,
+        runnable -> {
+          Thread thread = new Thread(runnable, "request-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  // Looked up reflectively so the code still compiles and runs on Java 8.
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.warn("virtual threads are not available on this JDK, using a platform thread pool");
+      return null;
+    }
+  }
+}
@@ -1,86 +1,340 @@
 package com.thoughtworks.rslist.service;
 
+import com.thoughtworks.rslist.domain.ItemResult;
 import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.TrendingEvent;
 import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.dto.RsEventDto;
-import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
-import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.exception.ServiceBusyException;
+import com.thoughtworks.rslist.ranking.HeatScore;
+import com.thoughtworks.rslist.ranking.RankLayout;
+import com.thoughtworks.rslist.ranking.RankOrder;
+import com.thoughtworks.rslist.ranking.RankStore;
+import com.thoughtworks.rslist.ranking.RankedListCache;
+import com.thoughtworks.rslist.ranking.TrendingCounters;
+import com.thoughtworks.rslist.repository.OffsetLimitRequest;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.persistence.criteria.CriteriaBuilder;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+
+import static java.util.Collections.singleton;
 
 @Service
 public class RsService {
+    public static final int MAX_BULK_VOTES = 10_000;
+    static final int BULK_VOTE_CHUNK = 500;
+    // Same wording as the per-item failures of the bulk event and user endpoints.
+    static final String NULL_ITEM = "item is null";
+    public static final int MAX_TRENDING = 100;
+
     final RsEventRepository rsEventRepository;
     final UserRepository userRepository;
     final VoteRepository voteRepository;
     final
     TradeRepository tradeRepository;
+    final RankStore rankStore;
+    final RankedListCache rankedListCache;
+    final TrendingCounters trendingCounters;
+    final VotePipeline votePipeline;
+    final StripedLocks stripedLocks;
+    final BidBook bidBook;
+    final TransactionTemplate transactionTemplate;
+    final TransactionTemplate readOnlyTransactionTemplate;
+    final Counter votesApplied;
 
-    public RsService(RsEventRepository rsEventRepository, UserRepository userRepository, VoteRepository voteRepository, TradeRepository tradeRepository) {
+    public RsService(RsEventRepository rsEventRepository, UserRepository userRepository, VoteRepository voteRepository, TradeRepository tradeRepository, RankStore rankStore, RankedListCache rankedListCache, TrendingCounters trendingCounters, VotePipeline votePipeline, StripedLocks stripedLocks, BidBook bidBook, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
         this.rsEventRepository = rsEventRepository;
         this.userRepository = userRepository;
         this.voteRepository = voteRepository;
         this.tradeRepository = tradeRepository;
+        this.rankStore = rankStore;
+        this.rankedListCache = rankedListCache;
+        this.trendingCounters = trendingCounters;
+        this.votePipeline = votePipeline;
+        this.stripedLocks = stripedLocks;
+        this.bidBook = bidBook;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.votesApplied = meterRegistry.counter("rslist.votes.applied");
     }
 
     public List<RsEvent> getList(){
-        List<RsEvent> notBoughtList = rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDesc(0,0).stream()
-                .map(
-                        item ->
-                                RsEvent.builder()
-                                        .eventName(item.getEventName())
-                                        .keyword(item.getKeyword())
-                                        .userId(item.getId())
-                                        .voteNum(item.getVoteNum())
-                                        .boughtRank(item.getBoughtRank())
-                                        .build())
-                .collect(Collectors.toList());
-        List<RsEvent> boughtList = rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankNot(0,0).stream()
-                .map(
-                        item ->
-                                RsEvent.builder()
-                                        .eventName(item.getEventName())
-                                        .keyword(item.getKeyword())
-                                        .userId(item.getId())
-                                        .voteNum(item.getVoteNum())
-                                        .boughtRank(item.getBoughtRank())
-                                        .build())
-                .collect(Collectors.toList());
-        List<RsEvent> allInOneList=new ArrayList<>();
-        int sum=notBoughtList.size()+boughtList.size();
-        int temp=0;
-        for(int i=0;i<sum;i++){
-            final Integer finalI=i;
-            List<RsEvent> boughtCurrentRankList=boughtList.stream().filter(x->x.getBoughtRank()==(finalI+1)).collect(Collectors.toList());
-            if(boughtCurrentRankList.size()>0){
-                allInOneList.add(boughtCurrentRankList.get(0));
-            }else{
-                allInOneList.add(notBoughtList.get(temp++));
+        if (rankedListCache.isEnabled()) {
+            return rankedListCache.list();
+        }
+        return rankStore.list();
+    }
+
+    /** Heat order is only kept in memory, so it is always served from the rank store. */
+    public List<RsEvent> getList(RankOrder order, Integer start, Integer end) {
+        if (order == RankOrder.VOTES) {
+            return start == null || end == null ? getList() : getList(start, end);
+        }
+        return start == null || end == null ? rankStore.list(order) : rankStore.page(order, start, end);
+    }
+
+    // A page never loads a cold or invalidated rank store: the window queries read only the requested
+    // ranks. Once a full-list read has loaded it, pages come from memory, through the list cache when
+    // that is on, since rebuilding the cache then costs no query.
+    public List<RsEvent> getList(int start, int end) {
+        if (rankStore.isLoaded()) {
+            return rankedListCache.isEnabled() ? rankedListCache.page(start, end) : rankStore.page(start, end);
+        }
+        if (start < 1 || end < start) {
+            throw new RequestNotValidException("invalid index");
+        }
+        // The window takes up to four queries; one read-only transaction keeps them on one connection.
+        List<RsEvent> window = readOnlyTransactionTemplate.execute(status -> getListFromRepository(start, end));
+        return window != null ? window : rankStore.page(start, end);
+    }
+
+    private List<RsEvent> getListFromRepository(int start, int end) {
+        List<Integer> slotRanks = rsEventRepository.findBoughtRanks();
+        // Events sharing a bought rank are laid out by the rank store's claimant rules; let it load.
+        for (int i = 1; i < slotRanks.size(); i++) {
+            if (slotRanks.get(i).equals(slotRanks.get(i - 1))) {
+                return null;
+            }
+        }
+        int unboughtCount = (int) rsEventRepository.countByIsDeletedEqualsAndBoughtRankEquals(0, 0);
+        int[] layout = RankLayout.layout(slotRanks.stream().mapToInt(Integer::intValue).toArray(), unboughtCount, start, end);
+
+        List<Integer> windowRanks = new ArrayList<>();
+        int firstUnbought = Integer.MAX_VALUE;
+        int lastUnbought = -1;
+        for (int cell : layout) {
+            if (RankLayout.isSlot(cell)) {
+                windowRanks.add(slotRanks.get(RankLayout.slotIndex(cell)));
+            } else {
+                firstUnbought = Math.min(firstUnbought, cell);
+                lastUnbought = Math.max(lastUnbought, cell);
+            }
+        }
+        Map<Integer, RsEventDto> bought = new HashMap<>();
+        if (!windowRanks.isEmpty()) {
+            rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankIn(0, windowRanks)
+                    .forEach(item -> bought.put(item.getBoughtRank(), item));
+        }
+        List<RsEventDto> unbought = lastUnbought < 0 ? Collections.emptyList()
+                : rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(
+                        0, 0, new OffsetLimitRequest(firstUnbought, lastUnbought - firstUnbought + 1));
+
+        List<RsEvent> rsEvents = new ArrayList<>(layout.length);
+        for (int cell : layout) {
+            RsEventDto item = RankLayout.isSlot(cell)
+                    ? bought.get(slotRanks.get(RankLayout.slotIndex(cell)))
+                    : cell - firstUnbought < unbought.size() ? unbought.get(cell - firstUnbought) : null;
+            if (item != null) {
+                rsEvents.add(toRsEvent(item));
+            }
+        }
+        return rsEvents;
+    }
+
+    public RsEvent getRsEvent(int index) {
+        List<RsEvent> rsEvents = index < 1 ? Collections.emptyList() : getList(index, index);
+        if (rsEvents.isEmpty()) {
+            throw new RequestNotValidException("invalid index");
+        }
+        return rsEvents.get(0);
+    }
+
+    private RsEvent toRsEvent(RsEventDto item) {
+        return new RsEvent(item.getEventName(), item.getKeyword(), item.getVoteNum(), item.getId(), item.getBoughtRank(), 0);
+    }
+
+    // Counts come from the in-memory windows; only the k winners are read back for their names.
+    public List<TrendingEvent> getTrending(int minutes, int limit) {
+        if (minutes < 1 || minutes > trendingCounters.getWindowMinutes()) {
+            throw new RequestNotValidException("invalid minutes");
+        }
+        if (limit < 1 || limit > MAX_TRENDING) {
+            throw new RequestNotValidException("invalid limit");
+        }
+        List<TrendingCounters.Trend> top = trendingCounters.top(limit, minutes);
+        Map<Integer, RsEventDto> rsEvents = new HashMap<>();
+        List<Integer> ids = new ArrayList<>(top.size());
+        top.forEach(trend -> ids.add(trend.rsEventId));
+        rsEventRepository.findAllById(ids).forEach(rsEvent -> rsEvents.put(rsEvent.getId(), rsEvent));
+        List<TrendingEvent> trending = new ArrayList<>(top.size());
+        for (TrendingCounters.Trend trend : top) {
+            RsEventDto rsEvent = rsEvents.get(trend.rsEventId);
+            if (rsEvent == null || rsEvent.getIsDeleted() == 1) {
+                trendingCounters.forget(trend.rsEventId);
+                continue;
             }
+            trending.add(TrendingEvent.builder()
+                    .rsEventId(rsEvent.getId())
+                    .eventName(rsEvent.getEventName())
+                    .keyword(rsEvent.getKeyword())
+                    .votes(trend.votes)
+                    .build());
         }
-        return allInOneList;
+        return trending;
     }
 
-    public List<RsEvent> getList(Integer start, Integer end) {
-        return getList().subList(start - 1, end);
+    public void vote(Vote request, int rsEventId) {
+        Vote vote = stamped(request);
+        if (votePipeline.isEnabled()) {
+            votePipeline.submit(vote, rsEventId);
+            return;
+        }
+        stripedLocks.withLocks(singleton(vote.getUserId()), singleton(rsEventId),
+                () -> OptimisticRetry.execute(transactionTemplate, status -> {
+                    applyVote(vote, rsEventId);
+                    return null;
+                }));
+        votesApplied.increment();
+        trendingCounters.record(rsEventId, vote.getVoteNum());
     }
 
-    public void vote(Vote vote, int rsEventId) {
+    // Applies each chunk under one set of stripe locks and one transaction: users and events are read
+    // once, balances are checked in request order, votes are batch-inserted and every touched user
+    // and event gets a single update.
+    public List<ItemResult> voteAll(List<Vote> votes) {
+        if (votes.size() > MAX_BULK_VOTES) {
+            throw new RequestNotValidException("too many votes");
+        }
+        List<ItemResult> results = new ArrayList<>(votes.size());
+        if (votePipeline.isEnabled()) {
+            for (int i = 0; i < votes.size(); i++) {
+                if (votes.get(i) == null) {
+                    results.add(ItemResult.failed(i, NULL_ITEM));
+                    continue;
+                }
+                try {
+                    votePipeline.submit(stamped(votes.get(i)), votes.get(i).getRsEventId());
+                    results.add(ItemResult.ok(i));
+                } catch (ServiceBusyException e) {
+                    results.add(ItemResult.failed(i, e.getMessage()));
+                } catch (RuntimeException e) {
+                    results.add(ItemResult.failed(i, "vote rejected"));
+                }
+            }
+            return results;
+        }
+        for (int from = 0; from < votes.size(); from += BULK_VOTE_CHUNK) {
+            int offset = from;
+            List<Vote> chunk = votes.subList(from, Math.min(from + BULK_VOTE_CHUNK, votes.size()));
+            Set<Integer> userIds = new HashSet<>();
+            Set<Integer> rsEventIds = new HashSet<>();
+            chunk.forEach(vote -> {
+                if (vote != null) {
+                    userIds.add(vote.getUserId());
+                    rsEventIds.add(vote.getRsEventId());
+                }
+            });
+            List<ItemResult> chunkResults;
+            try {
+                chunkResults = stripedLocks.withLocks(userIds, rsEventIds,
+                        () -> OptimisticRetry.execute(transactionTemplate,
+                                status -> applyVotes(chunk, offset, userIds, rsEventIds)));
+            } catch (OptimisticLockingFailureException e) {
+                // The chunk rolled back as a whole; earlier chunks stay committed and later ones still run.
+                results.addAll(failAll(offset, chunk.size(), "vote conflict"));
+                continue;
+            }
+            results.addAll(chunkResults);
+            votesApplied.increment(chunkResults.stream().filter(ItemResult::isSuccess).count());
+            for (ItemResult result : chunkResults) {
+                if (result.isSuccess()) {
+                    Vote vote = votes.get(result.getIndex());
+                    trendingCounters.record(vote.getRsEventId(), vote.getVoteNum());
+                }
+            }
+        }
+        return results;
+    }
+
+    // Vote records are paged on (time, id), so a vote sent without a time is dated on arrival.
+    private static Vote stamped(Vote vote) {
+        if (vote.getTime() != null) {
+            return vote;
+        }
+        return Vote.builder()
+                .userId(vote.getUserId())
+                .rsEventId(vote.getRsEventId())
+                .voteNum(vote.getVoteNum())
+                .time(LocalDateTime.now())
+                .build();
+    }
+
+    private static List<ItemResult> failAll(int offset, int count, String error) {
+        List<ItemResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(ItemResult.failed(offset + i, error));
+        }
+        return results;
+    }
+
+    private List<ItemResult> applyVotes(List<Vote> votes, int offset, Set<Integer> userIds, Set<Integer> rsEventIds) {
+        Map<Integer, UserDto> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+        Map<Integer, RsEventDto> rsEvents = new HashMap<>();
+        rsEventRepository.findAllById(rsEventIds).forEach(rsEvent -> rsEvents.put(rsEvent.getId(), rsEvent));
+
+        List<ItemResult> results = new ArrayList<>(votes.size());
+        List<VoteDto> voteDtos = new ArrayList<>(votes.size());
+        Map<Integer, UserDto> touchedUsers = new HashMap<>();
+        Map<Integer, RsEventDto> touchedRsEvents = new HashMap<>();
+        for (int i = 0; i < votes.size(); i++) {
+            if (votes.get(i) == null) {
+                results.add(ItemResult.failed(offset + i, NULL_ITEM));
+                continue;
+            }
+            Vote vote = stamped(votes.get(i));
+            UserDto user = users.get(vote.getUserId());
+            RsEventDto rsEvent = rsEvents.get(vote.getRsEventId());
+            if (user == null) {
+                results.add(ItemResult.failed(offset + i, "invalid user"));
+            } else if (rsEvent == null) {
+                results.add(ItemResult.failed(offset + i, "invalid rs event"));
+            } else if (vote.getVoteNum() > user.getVoteNum()) {
+                results.add(ItemResult.failed(offset + i, "vote not enough"));
+            } else {
+                user.setVoteNum(user.getVoteNum() - vote.getVoteNum());
+                rsEvent.setVoteNum(rsEvent.getVoteNum() + vote.getVoteNum());
+                rsEvent.setHeat(HeatScore.add(rsEvent.getHeat(), vote.getVoteNum(), vote.getTime()));
+                touchedUsers.put(user.getId(), user);
+                touchedRsEvents.put(rsEvent.getId(), rsEvent);
+                voteDtos.add(VoteDto.builder()
+                        .localDateTime(vote.getTime())
+                        .num(vote.getVoteNum())
+                        .rsEvent(rsEvent)
+                        .user(user)
+                        .build());
+                results.add(ItemResult.ok(offset + i));
+            }
+        }
+        voteRepository.saveAll(voteDtos);
+        userRepository.saveAll(touchedUsers.values());
+        rsEventRepository.saveAll(touchedRsEvents.values());
+        return results;
+    }
+
+    private void applyVote(Vote vote, int rsEventId) {
         Optional<RsEventDto> rsEventDto = rsEventRepository.findById(rsEventId);
         Optional<UserDto> userDto = userRepository.findById(vote.getUserId());
         if (!rsEventDto.isPresent()
@@ -101,39 +355,13 @@ public class RsService {
         userRepository.save(user);
         RsEventDto rsEvent = rsEventDto.get();
         rsEvent.setVoteNum(rsEvent.getVoteNum() + vote.getVoteNum());
+        rsEvent.setHeat(HeatScore.add(rsEvent.getHeat(), vote.getVoteNum(), vote.getTime()));
         rsEventRepository.save(rsEvent);
     }
 
     public void buy(Trade trade, int id) {
 //    如果如果该排名上的热搜没有人购买，那么用户花任意价格即可买到该位热搜 如果该排名上热搜已被购买，用户需要花高于当前价格的钱即可买到该位热搜，原热搜将会被替换掉（删除） 如果出价低于当前排名热搜价格，则购买失败，返回400
 //    数据库会保存每次热搜购买记录，包含：金额，购买热搜排名，对应热搜事件
-        List<TradeDto> tradeDtoList = tradeRepository.findAllByRank(trade.getRank());
-        if (tradeDtoList.size() > 0) {
-            TradeDto tradeDtoWithMaxAmout = tradeDtoList.stream().max(Comparator.comparing(TradeDto::getAmount)).get();
-            if (tradeDtoWithMaxAmout.getId() != id) {
-                if (trade.getAmount() <= tradeDtoWithMaxAmout.getAmount()) {
-                    throw new AmountNotEnoughException("amount not enough");
-                } else {
-//        rsEventRepository.delete(tradeDtoWithMaxAmout.getRsEventDto());
-                }
-                RsEventDto rsEventDtoToBeDelete = tradeDtoWithMaxAmout.getRsEventDto();
-//      rsEventDtoToBeDelete.setUser(null);
-//      rsEventRepository.save(rsEventDtoToBeDelete);
-//      rsEventRepository.delete(rsEventDtoToBeDelete);;
-//      rsEventRepository.deleteById(rsEventDtoToBeDelete.getId());
-                rsEventDtoToBeDelete.setIsDeleted(1);
-                rsEventRepository.save(rsEventDtoToBeDelete);
-            }
-        }
-
-        RsEventDto rsEventDto = rsEventRepository.findById(id).get();
-        rsEventDto.setBoughtRank(trade.getRank());
-        rsEventRepository.save(rsEventDto);
-        TradeDto tradeDto = TradeDto.builder()
-                .amount(trade.getAmount())
-                .rank(trade.getRank())
-                .rsEventDto(rsEventDto)
-                .build();
-        tradeRepository.save(tradeDto);
+        bidBook.bid(trade, id);
     }
 }
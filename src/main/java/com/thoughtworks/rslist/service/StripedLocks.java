@@ -0,0 +1,76 @@
+package com.thoughtworks.rslist.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-user and per-event lock stripes for the vote and balance paths, plus per-rank stripes for
+ * bids. Locks are always taken users first, then events, each in ascending stripe order, so callers
+ * locking several keys cannot deadlock each other. Rank locks are taken before any user or event
+ * lock, never while one is held.
+ */
+@Component
+public class StripedLocks {
+  private final ReentrantLock[] userStripes;
+  private final ReentrantLock[] rsEventStripes;
+  private final ReentrantLock[] rankStripes;
+
+  public StripedLocks(@Value("${rslist.lock-stripes:64}") int stripes) {
+    userStripes = newStripes(stripes);
+    rsEventStripes = newStripes(stripes);
+    rankStripes = newStripes(stripes);
+  }
+
+  public <T> T withLocks(Collection<Integer> userIds, Collection<Integer> rsEventIds, Supplier<T> action) {
+    List<ReentrantLock> locks = new ArrayList<>();
+    stripesFor(userStripes, userIds, locks);
+    stripesFor(rsEventStripes, rsEventIds, locks);
+    return withAll(locks, action);
+  }
+
+  public <T> T withRankLocks(Collection<Integer> ranks, Supplier<T> action) {
+    List<ReentrantLock> locks = new ArrayList<>();
+    stripesFor(rankStripes, ranks, locks);
+    return withAll(locks, action);
+  }
+
+  private static <T> T withAll(List<ReentrantLock> locks, Supplier<T> action) {
+    int locked = 0;
+    try {
+      for (ReentrantLock lock : locks) {
+        lock.lock();
+        locked++;
+      }
+      return action.get();
+    } finally {
+      for (int i = locked - 1; i >= 0; i--) {
+        locks.get(i).unlock();
+      }
+    }
+  }
+
+  private static ReentrantLock[] newStripes(int stripes) {
+    ReentrantLock[] locks = new ReentrantLock[stripes];
+    for (int i = 0; i < stripes; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    return locks;
+  }
+
+  private static void stripesFor(ReentrantLock[] stripes, Collection<Integer> ids, List<ReentrantLock> locks) {
+    TreeSet<Integer> indexes = new TreeSet<>();
+    for (Integer id : ids) {
+      indexes.add(Math.floorMod(id * 0x9E3779B9, stripes.length));
+    }
+    for (Integer index : indexes) {
+      locks.add(stripes[index]);
+    }
+  }
+}
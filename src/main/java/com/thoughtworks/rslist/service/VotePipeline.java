@@ -0,0 +1,400 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDeadLetterDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.exception.ServiceBusyException;
+import com.thoughtworks.rslist.ranking.HeatScore;
+import com.thoughtworks.rslist.ranking.TrendingCounters;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteDeadLetterRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind path for votes. A vote is validated and the user's balance reserved on the request
+ * thread; the vote rows and the coalesced user/event counter updates are written by a background
+ * flusher in one transaction per batch.
+ *
+ * <p>An acknowledged vote is never dropped. A batch that fails is retried on later flushes; after
+ * {@code max-attempts} its votes are written one by one, and a vote that still cannot be applied,
+ * for example because another node spent the balance first, is parked in {@link VoteDeadLetterDto}.
+ * Reservations are checked against the database balance on every submit, so votes written by other
+ * paths or nodes are seen; the flush re-checks the balance before spending it. Trending counts
+ * only take a vote once its batch has committed, so parked votes never show up there.
+ */
+@Slf4j
+@Component
+public class VotePipeline {
+  private final RsEventRepository rsEventRepository;
+  private final UserRepository userRepository;
+  private final VoteRepository voteRepository;
+  private final VoteDeadLetterRepository voteDeadLetterRepository;
+  private final StripedLocks stripedLocks;
+  private final TrendingCounters trendingCounters;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final long flushIntervalMs;
+  private final int batchSize;
+  private final long offerTimeoutMs;
+  private final int maxAttempts;
+  private final Counter votesApplied;
+  private final Counter votesParked;
+  private final Counter flushFailures;
+  private final BlockingQueue<PendingVote> queue;
+  private final Map<Integer, Account> accounts = new ConcurrentHashMap<>();
+  private final ReadWriteLock admission = new ReentrantReadWriteLock();
+  private volatile boolean stopping;
+  private ScheduledExecutorService flusher;
+  // Guarded by this: a batch that failed and waits to be retried before anything newer is written.
+  private List<PendingVote> failed = Collections.emptyList();
+  private int failedAttempts;
+
+  public VotePipeline(
+      RsEventRepository rsEventRepository,
+      UserRepository userRepository,
+      VoteRepository voteRepository,
+      VoteDeadLetterRepository voteDeadLetterRepository,
+      StripedLocks stripedLocks,
+      TrendingCounters trendingCounters,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${rslist.vote.write-behind.enabled:false}") boolean enabled,
+      @Value("${rslist.vote.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+      @Value("${rslist.vote.write-behind.batch-size:500}") int batchSize,
+      @Value("${rslist.vote.write-behind.queue-capacity:10000}") int queueCapacity,
+      @Value("${rslist.vote.write-behind.offer-timeout-ms:50}") long offerTimeoutMs,
+      @Value("${rslist.vote.write-behind.max-attempts:5}") int maxAttempts) {
+    this.rsEventRepository = rsEventRepository;
+    this.userRepository = userRepository;
+    this.voteRepository = voteRepository;
+    this.voteDeadLetterRepository = voteDeadLetterRepository;
+    this.stripedLocks = stripedLocks;
+    this.trendingCounters = trendingCounters;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.flushIntervalMs = flushIntervalMs;
+    this.batchSize = batchSize;
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.maxAttempts = maxAttempts;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.votesApplied = meterRegistry.counter("rslist.votes.applied");
+    this.votesParked = meterRegistry.counter("rslist.votes.parked");
+    this.flushFailures = meterRegistry.counter("rslist.votes.flush.failures");
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    flusher =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "vote-flusher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  // Closes admission first, so that no vote is queued after the final flush.
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    if (flusher == null) {
+      return;
+    }
+    admission.writeLock().lock();
+    try {
+      stopping = true;
+    } finally {
+      admission.writeLock().unlock();
+    }
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+    flush();
+    synchronized (this) {
+      writeOneByOne();
+      for (PendingVote pending : failed) {
+        log.error(
+            "vote lost at shutdown: user {} event {} votes {} at {}",
+            pending.vote.getUserId(), pending.rsEventId, pending.vote.getVoteNum(), pending.vote.getTime());
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void submit(Vote vote, int rsEventId) {
+    if (!admission.readLock().tryLock()) {
+      throw new ServiceBusyException("vote pipeline is shutting down");
+    }
+    try {
+      if (stopping) {
+        throw new ServiceBusyException("vote pipeline is shutting down");
+      }
+      if (!rsEventRepository.existsById(rsEventId)) {
+        throw new RuntimeException();
+      }
+      Account account = reserve(vote.getUserId(), vote.getVoteNum());
+      if (account == null) {
+        throw new RuntimeException();
+      }
+      PendingVote pending = new PendingVote(vote, rsEventId, account);
+      boolean accepted;
+      try {
+        accepted = queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        accepted = false;
+      }
+      if (!accepted) {
+        settle(pending);
+        throw new ServiceBusyException("vote queue is full");
+      }
+      if (queue.size() >= batchSize) {
+        flusher.execute(this::flushQuietly);
+      }
+    } finally {
+      admission.readLock().unlock();
+    }
+  }
+
+  public synchronized void flush() {
+    if (!retryFailed()) {
+      return;
+    }
+    List<PendingVote> batch = new ArrayList<>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      if (!tryWrite(batch)) {
+        failed = batch;
+        failedAttempts = 1;
+        return;
+      }
+      batch = new ArrayList<>(batchSize);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RuntimeException e) {
+      log.error("vote flush failed", e);
+    }
+  }
+
+  // True once no failed batch is waiting; newer votes are held back until then.
+  private boolean retryFailed() {
+    if (failed.isEmpty()) {
+      return true;
+    }
+    if (tryWrite(failed)) {
+      failed = Collections.emptyList();
+      return true;
+    }
+    if (++failedAttempts < maxAttempts) {
+      return false;
+    }
+    return writeOneByOne();
+  }
+
+  // Isolates the votes that break a batch. A vote that cannot be written or parked, because the
+  // database itself is down, stays in failed for the next round.
+  private boolean writeOneByOne() {
+    List<PendingVote> remaining = new ArrayList<>();
+    for (PendingVote pending : failed) {
+      if (!tryWrite(Collections.singletonList(pending)) && !park(pending)) {
+        remaining.add(pending);
+      }
+    }
+    failed = remaining;
+    failedAttempts = 0;
+    return remaining.isEmpty();
+  }
+
+  private boolean tryWrite(List<PendingVote> batch) {
+    Set<Integer> userIds = new HashSet<>();
+    Set<Integer> rsEventIds = new HashSet<>();
+    batch.forEach(
+        pending -> {
+          userIds.add(pending.vote.getUserId());
+          rsEventIds.add(pending.rsEventId);
+        });
+    List<PendingVote> applied;
+    try {
+      applied =
+          stripedLocks.withLocks(
+              userIds,
+              rsEventIds,
+              () -> OptimisticRetry.execute(transactionTemplate, status -> write(batch, userIds, rsEventIds)));
+    } catch (RuntimeException e) {
+      log.warn("writing {} votes failed", batch.size(), e);
+      flushFailures.increment();
+      return false;
+    }
+    batch.forEach(this::settle);
+    applied.forEach(pending -> trendingCounters.record(pending.rsEventId, pending.vote.getVoteNum()));
+    votesApplied.increment(applied.size());
+    votesParked.increment(batch.size() - applied.size());
+    return true;
+  }
+
+  private boolean park(PendingVote pending) {
+    try {
+      transactionTemplate.execute(
+          status -> voteDeadLetterRepository.save(deadLetter(pending, "vote write failed")));
+    } catch (RuntimeException e) {
+      log.warn("parking a vote failed", e);
+      return false;
+    }
+    settle(pending);
+    votesParked.increment();
+    return true;
+  }
+
+  // The database balance is re-read on every reservation; settled changes each time written votes
+  // leave outstanding, so a balance read before such a write is retried instead of trusted.
+  private Account reserve(int userId, int voteNum) {
+    while (true) {
+      Account account = accounts.computeIfAbsent(userId, id -> new Account());
+      long settled;
+      synchronized (account) {
+        settled = account.settled;
+      }
+      Optional<UserDto> userDto = userRepository.findById(userId);
+      synchronized (account) {
+        if (account.retired || account.settled != settled) {
+          continue;
+        }
+        if (userDto.isPresent() && voteNum <= userDto.get().getVoteNum() - account.outstanding) {
+          account.outstanding += voteNum;
+          return account;
+        }
+        if (account.outstanding == 0) {
+          account.retired = true;
+          accounts.remove(userId, account);
+        }
+        return null;
+      }
+    }
+  }
+
+  private void settle(PendingVote pending) {
+    Account account = pending.account;
+    synchronized (account) {
+      account.outstanding -= pending.vote.getVoteNum();
+      account.settled++;
+      if (account.outstanding == 0) {
+        account.retired = true;
+        accounts.remove(pending.vote.getUserId(), account);
+      }
+    }
+  }
+
+  // Returns the votes that were applied; the rest of the batch was parked.
+  private List<PendingVote> write(List<PendingVote> batch, Set<Integer> userIds, Set<Integer> rsEventIds) {
+    Map<Integer, UserDto> users = new HashMap<>();
+    userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+    Map<Integer, RsEventDto> rsEvents = new HashMap<>();
+    rsEventRepository.findAllById(rsEventIds).forEach(rsEvent -> rsEvents.put(rsEvent.getId(), rsEvent));
+
+    List<PendingVote> applied = new ArrayList<>(batch.size());
+    List<VoteDto> voteDtos = new ArrayList<>(batch.size());
+    List<VoteDeadLetterDto> deadLetters = new ArrayList<>();
+    for (PendingVote pending : batch) {
+      UserDto user = users.get(pending.vote.getUserId());
+      RsEventDto rsEvent = rsEvents.get(pending.rsEventId);
+      if (user == null) {
+        deadLetters.add(deadLetter(pending, "invalid user"));
+        continue;
+      }
+      if (rsEvent == null) {
+        deadLetters.add(deadLetter(pending, "invalid rs event"));
+        continue;
+      }
+      if (pending.vote.getVoteNum() > user.getVoteNum()) {
+        deadLetters.add(deadLetter(pending, "vote not enough"));
+        continue;
+      }
+      applied.add(pending);
+      voteDtos.add(
+          VoteDto.builder()
+              .localDateTime(pending.vote.getTime())
+              .num(pending.vote.getVoteNum())
+              .rsEvent(rsEvent)
+              .user(user)
+              .build());
+      user.setVoteNum(user.getVoteNum() - pending.vote.getVoteNum());
+      rsEvent.setVoteNum(rsEvent.getVoteNum() + pending.vote.getVoteNum());
+      rsEvent.setHeat(HeatScore.add(rsEvent.getHeat(), pending.vote.getVoteNum(), pending.vote.getTime()));
+    }
+    voteRepository.saveAll(voteDtos);
+    userRepository.saveAll(users.values());
+    rsEventRepository.saveAll(rsEvents.values());
+    if (!deadLetters.isEmpty()) {
+      voteDeadLetterRepository.saveAll(deadLetters);
+    }
+    return applied;
+  }
+
+  private static VoteDeadLetterDto deadLetter(PendingVote pending, String reason) {
+    return VoteDeadLetterDto.builder()
+        .userId(pending.vote.getUserId())
+        .rsEventId(pending.rsEventId)
+        .voteNum(pending.vote.getVoteNum())
+        .voteTime(pending.vote.getTime())
+        .reason(reason)
+        .createdAt(LocalDateTime.now())
+        .build();
+  }
+
+  // Votes of one user reserved on this node and not yet written or parked.
+  private static final class Account {
+    int outstanding;
+    long settled;
+    boolean retired;
+  }
+
+  private static final class PendingVote {
+    final Vote vote;
+    final int rsEventId;
+    final Account account;
+
+    PendingVote(Vote vote, int rsEventId, Account account) {
+      this.vote = vote;
+      this.rsEventId = rsEventId;
+      this.account = account;
+    }
+  }
+}
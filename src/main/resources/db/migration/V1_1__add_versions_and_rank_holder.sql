@@ -0,0 +1,32 @@
+-- Optimistic-lock versions, the rank holder table and the per-entity id sequences. Rows that
+-- predate this migration get version 0 and sequences start above the ids already handed out.
+
+alter table user add column version integer;
+update user set version = 0;
+alter table rs_event add column version integer;
+update rs_event set version = 0;
+
+create table rank_holder (
+  holder_rank integer not null,
+  amount double precision not null,
+  version integer,
+  rs_event_id integer,
+  primary key (holder_rank),
+  constraint fk_rank_holder_rs_event foreign key (rs_event_id) references rs_event (id) on delete cascade
+) engine=InnoDB;
+
+-- The holder of a rank is its highest trade, the latest one if several match.
+insert into rank_holder (holder_rank, amount, version, rs_event_id)
+select t.rank, t.amount, 0, t.rs_event_dto_id
+from trade t
+where t.id = (
+  select max(t2.id) from trade t2
+  where t2.rank = t.rank and t2.amount = (select max(t3.amount) from trade t3 where t3.rank = t.rank));
+
+-- Sequence tables for the pooled id generators (MySQL has no native sequences).
+create table user_seq (next_val bigint) engine=InnoDB;
+insert into user_seq select coalesce(max(id), 0) + 1 from user;
+create table rs_event_seq (next_val bigint) engine=InnoDB;
+insert into rs_event_seq select coalesce(max(id), 0) + 1 from rs_event;
+create table vote_seq (next_val bigint) engine=InnoDB;
+insert into vote_seq select coalesce(max(id), 0) + 1 from vote;
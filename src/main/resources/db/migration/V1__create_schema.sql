@@ -0,0 +1,51 @@
+-- Baseline schema, equivalent to what Hibernate generated with ddl-auto: create before Flyway took
+-- over. Databases created that way are baselined at this version, so everything added since goes in
+-- later migrations. Kept to MySQL 5.5 syntax (no fractional-second datetime) to match
+-- prepare/docker-compose.yml.
+
+create table user (
+  id integer not null,
+  age integer not null,
+  email varchar(255),
+  gender varchar(255),
+  name varchar(255),
+  phone varchar(255),
+  vote_num integer not null,
+  primary key (id)
+) engine=InnoDB;
+
+create table rs_event (
+  id integer not null,
+  bought_rank integer not null,
+  event_name varchar(255),
+  is_deleted integer not null,
+  keyword varchar(255),
+  vote_num integer not null,
+  user_id integer,
+  primary key (id),
+  constraint fk_rs_event_user foreign key (user_id) references user (id)
+) engine=InnoDB;
+
+create table vote (
+  id integer not null,
+  local_date_time datetime,
+  num integer not null,
+  rs_event_id integer,
+  user_id integer,
+  primary key (id),
+  constraint fk_vote_rs_event foreign key (rs_event_id) references rs_event (id),
+  constraint fk_vote_user foreign key (user_id) references user (id)
+) engine=InnoDB;
+
+create table trade (
+  id integer not null,
+  amount double precision not null,
+  rank integer not null,
+  rs_event_dto_id integer,
+  primary key (id),
+  constraint fk_trade_rs_event foreign key (rs_event_dto_id) references rs_event (id)
+) engine=InnoDB;
+
+-- The id generator shared by every entity.
+create table hibernate_sequence (next_val bigint) engine=InnoDB;
+insert into hibernate_sequence values (1);
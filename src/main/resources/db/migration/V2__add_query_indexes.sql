@@ -0,0 +1,10 @@
+-- Indexes for the repository queries. SchemaIndexVerifier checks at startup that the planner can use them.
+
+-- Ranked list: unbought window ordered by votes, unbought count, bought-rank scan.
+create index idx_rs_event_rank on rs_event (is_deleted, bought_rank, vote_num, id);
+
+-- Trade history of one rank, cheapest to most expensive.
+create index idx_trade_rank_amount on trade (rank, amount);
+
+-- Vote records of one user on one event, in keyset order.
+create index idx_vote_user_event_time on vote (user_id, rs_event_id, local_date_time, id);
@@ -0,0 +1,19 @@
+-- Outbox the replicated rank store ships committed rs_event changes through. Every node polls it in
+-- id order, so the id has to come from auto_increment rather than a per-node pooled sequence.
+
+create table rank_delta (
+  id bigint not null auto_increment,
+  node_id varchar(64),
+  rs_event_id integer not null,
+  event_name varchar(255),
+  keyword varchar(255),
+  vote_num integer not null,
+  bought_rank integer not null,
+  is_deleted integer not null,
+  removed bit not null,
+  version integer,
+  created_at datetime,
+  primary key (id)
+) engine=InnoDB;
+
+create index idx_rank_delta_created_at on rank_delta (created_at);
@@ -0,0 +1,14 @@
+-- Outbox of committed votes and trades. Written in the transaction of the change, drained in id
+-- order by OutboxRelay and deleted once every consumer has accepted it.
+
+create table outbox_event (
+  id bigint not null auto_increment,
+  type varchar(16) not null,
+  rs_event_id integer not null,
+  user_id integer,
+  vote_num integer not null,
+  trade_rank integer not null,
+  amount double precision not null,
+  created_at datetime,
+  primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,21 @@
+-- Log of the epoch-anchored, exponentially decayed vote weight (see HeatScore); null until the
+-- first vote. The backfill factors out each event's latest vote so the exponentials stay finite.
+
+alter table rs_event add column heat double precision;
+
+alter table rank_delta add column heat double precision;
+
+-- Written with correlated subqueries rather than a multi-table update so that H2 in MySQL mode,
+-- which the multi-node tests run the migrations on, accepts it too.
+update rs_event
+set heat = (
+  select ln(sum(v.num * exp((timestampdiff(second, '2020-01-01 00:00:00', v.local_date_time)
+                             - (select max(timestampdiff(second, '2020-01-01 00:00:00', w.local_date_time))
+                                from vote w
+                                where w.rs_event_id = rs_event.id and w.num > 0))
+                            * ln(2) / 86400)))
+         + (select max(timestampdiff(second, '2020-01-01 00:00:00', w.local_date_time))
+            from vote w
+            where w.rs_event_id = rs_event.id and w.num > 0) * ln(2) / 86400
+  from vote v
+  where v.rs_event_id = rs_event.id and v.num > 0);
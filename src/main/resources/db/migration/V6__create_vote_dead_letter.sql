@@ -0,0 +1,13 @@
+-- Write-behind votes that were acknowledged but could not be applied, kept for an operator to
+-- inspect and replay instead of being dropped.
+
+create table vote_dead_letter (
+  id bigint not null auto_increment,
+  user_id integer not null,
+  rs_event_id integer not null,
+  vote_num integer not null,
+  vote_time datetime,
+  reason varchar(255),
+  created_at datetime,
+  primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,6 @@
+-- Keyset paging of vote records orders and resumes on (local_date_time, id), which a null time
+-- breaks. Votes without a time are dated at the epoch, so they page first, and new votes always
+-- get one.
+
+update vote set local_date_time = '1970-01-01 00:00:00' where local_date_time is null;
+alter table vote modify local_date_time datetime not null;
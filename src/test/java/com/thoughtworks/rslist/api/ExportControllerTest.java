@@ -0,0 +1,144 @@
+package com.thoughtworks.rslist.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportControllerTest {
+  @Autowired MockMvc mockMvc;
+  @Autowired ObjectMapper objectMapper;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+  UserDto userDto;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+  }
+
+  @Test
+  void shouldExportRankedListAsNdjson() throws Exception {
+    saveEvent("second", 5, 0);
+    saveEvent("bought", 0, 1);
+    saveEvent("first", 10, 0);
+    saveEvent("tail", 0, 9);
+
+    List<RsEvent> rsEvents = new ArrayList<>();
+    for (String line : export("/export/rs")) {
+      rsEvents.add(objectMapper.readValue(line, RsEvent.class));
+    }
+
+    assertEquals(4, rsEvents.size());
+    assertEquals("bought", rsEvents.get(0).getEventName());
+    assertEquals("first", rsEvents.get(1).getEventName());
+    assertEquals("second", rsEvents.get(2).getEventName());
+    assertEquals("tail", rsEvents.get(3).getEventName());
+  }
+
+  @Test
+  void shouldRankClaimantsOfSharedBoughtRankByVotes() throws Exception {
+    saveEvent("holder", 0, 1);
+    saveEvent("claimant", 7, 1);
+    saveEvent("first", 10, 0);
+    saveEvent("second", 5, 0);
+
+    List<String> names = new ArrayList<>();
+    for (String line : export("/export/rs")) {
+      names.add(objectMapper.readValue(line, RsEvent.class).getEventName());
+    }
+
+    assertEquals(Arrays.asList("holder", "first", "claimant", "second"), names);
+  }
+
+  @Test
+  void shouldExportVoteHistoryAsNdjson() throws Exception {
+    RsEventDto rsEventDto = saveEvent("event", 0, 0);
+    for (int i = 1; i <= 3; i++) {
+      voteRepository.save(
+          VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now()).num(i).build());
+    }
+
+    List<String> lines = export("/export/votes");
+
+    assertEquals(3, lines.size());
+    for (int i = 0; i < 3; i++) {
+      Vote vote = objectMapper.readValue(lines.get(i), Vote.class);
+      assertEquals(i + 1, vote.getVoteNum());
+      assertEquals(userDto.getId(), vote.getUserId());
+      assertEquals(rsEventDto.getId(), vote.getRsEventId());
+    }
+  }
+
+  private List<String> export(String uri) throws Exception {
+    MvcResult started = mockMvc.perform(get(uri)).andExpect(request().asyncStarted()).andReturn();
+    String body =
+        mockMvc
+            .perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(ExportController.NDJSON))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    List<String> lines = new ArrayList<>();
+    for (String line : body.split("\n")) {
+      if (!line.isEmpty()) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private RsEventDto saveEvent(String name, int voteNum, int boughtRank) {
+    return rsEventRepository.save(
+        RsEventDto.builder()
+            .eventName(name)
+            .keyword("keyword")
+            .voteNum(voteNum)
+            .boughtRank(boughtRank)
+            .user(userDto)
+            .build());
+  }
+}
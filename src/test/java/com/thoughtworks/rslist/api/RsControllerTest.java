@@ -19,9 +19,13 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,9 +38,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -149,6 +155,77 @@ class RsControllerTest {
         .andExpect(jsonPath("$[2].keyword", is("无分类")));
   }
 
+  @Test
+  public void shouldGetRsListByHeat() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    rsEventRepository.save(
+        RsEventDto.builder().keyword("无分类").eventName("第一条事件").voteNum(10).user(save).build());
+    RsEventDto rsEventDto =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+    String jsonValue =
+        String.format(
+            "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
+            save.getId(), LocalDateTime.now().toString());
+    performAsync(
+            post("/rs/vote/{id}", rsEventDto.getId())
+                .content(jsonValue)
+                .contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/rs/list?order=heat"))
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].eventName", is("第二条事件")))
+        .andExpect(jsonPath("$[1].eventName", is("第一条事件")));
+    mockMvc
+        .perform(get("/rs/list?order=heat&start=2&end=2"))
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].eventName", is("第一条事件")));
+    mockMvc
+        .perform(get("/rs/list?order=votes"))
+        .andExpect(jsonPath("$[0].eventName", is("第一条事件")));
+    mockMvc
+        .perform(get("/rs/list?order=newest"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid order")));
+  }
+
+  @Test
+  public void shouldGetTrendingEvents() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto first =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").voteNum(10).user(save).build());
+    RsEventDto second =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第二条事件").user(save).build());
+    for (Object[] vote : new Object[][] {{first.getId(), 1}, {second.getId(), 3}}) {
+      String jsonValue =
+          String.format(
+              "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":%d}",
+              save.getId(), LocalDateTime.now().toString(), vote[1]);
+      performAsync(
+              post("/rs/vote/{id}", vote[0])
+                  .content(jsonValue)
+                  .contentType(MediaType.APPLICATION_JSON))
+          .andExpect(status().isOk());
+    }
+
+    mockMvc
+        .perform(get("/rs/trending?minutes=5"))
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].eventName", is("第二条事件")))
+        .andExpect(jsonPath("$[0].votes", is(3)))
+        .andExpect(jsonPath("$[1].eventName", is("第一条事件")))
+        .andExpect(jsonPath("$[1].votes", is(1)));
+    mockMvc
+        .perform(get("/rs/trending?limit=1"))
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].rsEventId", is(second.getId())));
+    mockMvc
+        .perform(get("/rs/trending?minutes=0"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("invalid minutes")));
+  }
+
   @Test
   public void shouldAddRsEventWhenUserExist() throws Exception {
 
@@ -169,6 +246,37 @@ class RsControllerTest {
     assertEquals(all.get(0).getUser().getAge(), save.getAge());
   }
 
+  @Test
+  public void shouldAddRsEventsInBulkAndReportInvalidOnes() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    String jsonValue =
+        String.format(
+            "[{\"eventName\":\"猪肉涨价了\",\"keyword\":\"经济\",\"userId\":%1$d},"
+                + "{\"keyword\":\"经济\",\"userId\":%1$d},"
+                + "{\"eventName\":\"股市崩了\",\"keyword\":\"经济\",\"userId\":%2$d},"
+                + "{\"eventName\":\"学校放假了\",\"keyword\":\"教育\",\"userId\":%1$d}]",
+            save.getId(), save.getId() + 100);
+
+    mockMvc
+        .perform(post("/rs/events").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(4)))
+        .andExpect(jsonPath("$[0].success", is(true)))
+        .andExpect(jsonPath("$[1].success", is(false)))
+        .andExpect(jsonPath("$[2].error", is("invalid user")))
+        .andExpect(jsonPath("$[3].success", is(true)));
+    assertEquals(2, rsEventRepository.findAll().size());
+  }
+
+  @Test
+  public void shouldRejectTooManyRsEventsInBulk() throws Exception {
+    String jsonValue = "[" + String.join(",", Collections.nCopies(BulkValidation.MAX_ITEMS + 1, "null")) + "]";
+    mockMvc
+        .perform(post("/rs/events").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("too many rs events")));
+  }
+
   @Test
   public void shouldAddRsEventWhenUserNotExist() throws Exception {
     String jsonValue = "{\"eventName\":\"猪肉涨价了\",\"keyword\":\"经济\",\"userId\": 100}";
@@ -177,6 +285,37 @@ class RsControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  public void shouldVoteInBulkWithPerItemResults() throws Exception {
+    UserDto save = userRepository.save(userDto);
+    RsEventDto rsEventDto =
+        rsEventRepository.save(RsEventDto.builder().keyword("无分类").eventName("第一条事件").user(save).build());
+    String time = LocalDateTime.now().toString();
+    String jsonValue =
+        String.format(
+            "[{\"userId\":%1$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":5},"
+                + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":4},"
+                + "{\"userId\":%1$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":2},"
+                + "{\"userId\":%4$d,\"rsEventId\":%2$d,\"time\":\"%3$s\",\"voteNum\":1},"
+                + "{\"userId\":%1$d,\"rsEventId\":%5$d,\"time\":\"%3$s\",\"voteNum\":1}]",
+            save.getId(), rsEventDto.getId(), time, save.getId() + 100, rsEventDto.getId() + 100);
+
+    mockMvc
+        .perform(post("/rs/votes").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(5)))
+        .andExpect(jsonPath("$[0].success", is(true)))
+        .andExpect(jsonPath("$[1].success", is(true)))
+        .andExpect(jsonPath("$[2].error", is("vote not enough")))
+        .andExpect(jsonPath("$[3].error", is("invalid user")))
+        .andExpect(jsonPath("$[4].index", is(4)))
+        .andExpect(jsonPath("$[4].error", is("invalid rs event")));
+
+    assertEquals(1, userRepository.findById(save.getId()).get().getVoteNum());
+    assertEquals(9, rsEventRepository.findById(rsEventDto.getId()).get().getVoteNum());
+    assertEquals(2, voteRepository.findAll().size());
+  }
+
   @Test
   public void shouldVoteSuccess() throws Exception {
     UserDto save = userRepository.save(userDto);
@@ -188,8 +327,7 @@ class RsControllerTest {
         String.format(
             "{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
             save.getId(), LocalDateTime.now().toString());
-    mockMvc
-        .perform(
+    performAsync(
             post("/rs/vote/{id}", rsEventDto.getId())
                 .content(jsonValue)
                 .contentType(MediaType.APPLICATION_JSON))
@@ -229,7 +367,7 @@ class RsControllerTest {
             .rank(1).build();
     ObjectMapper mapper=new ObjectMapper();
     String json = mapper.writeValueAsString(trade);
-    mockMvc.perform(post("/rs/buy/{id}", rsEventDto.getId())
+    performAsync(post("/rs/buy/{id}", rsEventDto.getId())
                           .content(json)
                           .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk());
@@ -264,7 +402,7 @@ class RsControllerTest {
             .rank(1).build();
     ObjectMapper mapper=new ObjectMapper();
     String json = mapper.writeValueAsString(trade);
-    mockMvc.perform(post("/rs/buy/{id}", rsEventDto.getId())
+    performAsync(post("/rs/buy/{id}", rsEventDto.getId())
             .content(json)
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk());
@@ -285,7 +423,7 @@ class RsControllerTest {
             .amount(20)
             .rank(1).build();
     String json2 = mapper.writeValueAsString(trade2);
-    mockMvc.perform(post("/rs/buy/{id}", rsEventDto2.getId())
+    performAsync(post("/rs/buy/{id}", rsEventDto2.getId())
             .content(json2)
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk());
@@ -330,7 +468,7 @@ class RsControllerTest {
             .rank(1).build();
     ObjectMapper mapper=new ObjectMapper();
     String json = mapper.writeValueAsString(trade);
-    mockMvc.perform(post("/rs/buy/{id}", rsEventDto.getId())
+    performAsync(post("/rs/buy/{id}", rsEventDto.getId())
             .content(json)
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk());
@@ -351,10 +489,16 @@ class RsControllerTest {
             .amount(5)
             .rank(1).build();
     String json2 = mapper.writeValueAsString(trade2);
-    mockMvc.perform(post("/rs/buy/{id}", rsEventDto2.getId())
+    performAsync(post("/rs/buy/{id}", rsEventDto2.getId())
             .content(json2)
             .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.error", is("amount not enough")));
   }
+
+  // Vote and buy complete on the request executor, so their response is produced by an async dispatch.
+  private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+    MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    return mockMvc.perform(asyncDispatch(started));
+  }
 }
@@ -14,11 +14,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -103,6 +109,36 @@ class UserControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  public void shouldRegisterUsersInBulkAndReportInvalidOnes() throws Exception {
+    List<User> users =
+        Arrays.asList(
+            new User("idolice", "female", 19, "a@b.com", "18888888888"),
+            new User("idolice", "female", 17, "a@b.com", "18888888888"),
+            new User("xiaoli", "male", 20, "c@d.com", "18888888889"));
+    mockMvc
+        .perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(users)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(3)))
+        .andExpect(jsonPath("$[0].success", is(true)))
+        .andExpect(jsonPath("$[1].success", is(false)))
+        .andExpect(jsonPath("$[1].error", startsWith("age ")))
+        .andExpect(jsonPath("$[2].success", is(true)));
+
+    List<UserDto> all = userRepository.findAll();
+    assertEquals(2, all.size());
+    assertEquals(10, all.get(0).getVoteNum());
+  }
+
+  @Test
+  public void shouldRejectTooManyUsersInBulk() throws Exception {
+    String jsonValue = "[" + String.join(",", Collections.nCopies(BulkValidation.MAX_ITEMS + 1, "null")) + "]";
+    mockMvc
+        .perform(post("/users").content(jsonValue).contentType(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error", is("too many users")));
+  }
+
   @Test
   public void shouldDeleteUser() throws Exception {
     UserDto userDto =
@@ -4,22 +4,36 @@ import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
 import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDateTime;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -31,6 +45,10 @@ class VoteControllerTest {
     RsEventRepository rsEventRepository;
     @Autowired
     VoteRepository voteRepository;
+    @Autowired
+    TradeRepository tradeRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
     UserDto userDto;
     RsEventDto rsEventDto;
 
@@ -49,6 +67,7 @@ class VoteControllerTest {
 
     @AfterEach
     void tearDown() {
+        tradeRepository.deleteAll();
         voteRepository.deleteAll();
         rsEventRepository.deleteAll();
         userRepository.deleteAll();
@@ -107,4 +126,175 @@ class VoteControllerTest {
 
 
     }
+
+    @Test
+    public void shouldGetVoteRecordInOneStatement() throws Exception {
+      for (int i = 0; i < 4; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+                .num(i).build());
+      }
+      double before = statements("/voteRecord");
+
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageIndex", "1"))
+              .andExpect(jsonPath("$", hasSize(5)));
+
+      assertEquals(1, statements("/voteRecord") - before);
+    }
+
+    @Test
+    public void shouldWalkVoteRecordsByCursor() throws Exception {
+      for (int i = 6; i <= 11; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+                .num(i).build());
+      }
+
+      String cursor = mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageSize", "3"))
+              .andExpect(jsonPath("$", hasSize(3)))
+              .andExpect(jsonPath("$[0].voteNum",is(5)))
+              .andExpect(jsonPath("$[2].voteNum",is(7)))
+              .andReturn().getResponse().getHeader(VoteController.NEXT_CURSOR_HEADER);
+      cursor = mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageSize", "3").param("cursor", cursor))
+              .andExpect(jsonPath("$", hasSize(3)))
+              .andExpect(jsonPath("$[0].voteNum",is(8)))
+              .andExpect(jsonPath("$[2].voteNum",is(10)))
+              .andReturn().getResponse().getHeader(VoteController.NEXT_CURSOR_HEADER);
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageSize", "3").param("cursor", cursor))
+              .andExpect(jsonPath("$", hasSize(1)))
+              .andExpect(jsonPath("$[0].voteNum",is(11)))
+              .andExpect(header().doesNotExist(VoteController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void shouldPageVoteSentWithoutTimeByCursor() throws Exception {
+      performAsync(post("/rs/vote/{id}", rsEventDto.getId())
+              .content(String.format("{\"userId\":%d,\"voteNum\":2}", userDto.getId()))
+              .contentType(MediaType.APPLICATION_JSON))
+              .andExpect(status().isOk());
+
+      String cursor = mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageSize", "1"))
+              .andExpect(jsonPath("$[0].voteNum",is(5)))
+              .andReturn().getResponse().getHeader(VoteController.NEXT_CURSOR_HEADER);
+      cursor = mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageSize", "1").param("cursor", cursor))
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$", hasSize(1)))
+              .andExpect(jsonPath("$[0].voteNum",is(2)))
+              .andReturn().getResponse().getHeader(VoteController.NEXT_CURSOR_HEADER);
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("pageSize", "1").param("cursor", cursor))
+              .andExpect(status().isOk())
+              .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    public void shouldRejectMalformedCursor() throws Exception {
+      mockMvc.perform(get("/voteRecord").param("userId",String.valueOf(userDto.getId()))
+              .param("rsEventId",String.valueOf(rsEventDto.getId())).param("cursor", "not a cursor"))
+              .andExpect(status().isBadRequest())
+              .andExpect(jsonPath("$.error",is("invalid cursor")));
+    }
+
+    @Test
+    public void shouldCountStatementsOfVoteRunOnExecutor() throws Exception {
+      double before = statements("/rs/vote/{id}");
+
+      performAsync(post("/rs/vote/{id}", rsEventDto.getId())
+              .content(String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
+                      userDto.getId(), LocalDateTime.now()))
+              .contentType(MediaType.APPLICATION_JSON))
+              .andExpect(status().isOk());
+
+      assertTrue(statements("/rs/vote/{id}") - before > 0);
+    }
+
+    // Bounds rather than exact counts: id allocation and the second-level cache make the exact
+    // number vary, but none of them may grow with the number of rows involved.
+    @Test
+    public void shouldListWithoutStatementPerEvent() throws Exception {
+      saveEvents(5);
+      double before = statements("/rs/list");
+
+      mockMvc.perform(get("/rs/list").param("start", "1").param("end", "6"))
+              .andExpect(jsonPath("$", hasSize(6)));
+
+      assertTrue(statements("/rs/list") - before <= 4);
+    }
+
+    @Test
+    public void shouldGetRsEventWithoutStatementPerEvent() throws Exception {
+      saveEvents(5);
+      double before = statements("/rs/{index}");
+
+      mockMvc.perform(get("/rs/{index}", 6)).andExpect(status().isOk());
+
+      assertTrue(statements("/rs/{index}") - before <= 4);
+    }
+
+    @Test
+    public void shouldRegisterUserInFewStatements() throws Exception {
+      double before = statements("/user");
+
+      mockMvc.perform(post("/user")
+              .content("{\"userName\":\"xiaoli\",\"age\":19,\"gender\":\"female\","
+                      + "\"email\":\"a@thoughtworks.com\",\"phone\":\"18888888888\",\"voteNum\":10}")
+              .contentType(MediaType.APPLICATION_JSON))
+              .andExpect(status().isOk());
+
+      double delta = statements("/user") - before;
+      assertTrue(delta >= 1 && delta <= 3);
+    }
+
+    @Test
+    public void shouldVoteWithoutReadingPastVotes() throws Exception {
+      for (int i = 0; i < 5; i++) {
+        voteRepository.save(VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now())
+                .num(1).build());
+      }
+      double before = statements("/rs/vote/{id}");
+
+      performAsync(post("/rs/vote/{id}", rsEventDto.getId())
+              .content(String.format("{\"userId\":%d,\"time\":\"%s\",\"voteNum\":1}",
+                      userDto.getId(), LocalDateTime.now()))
+              .contentType(MediaType.APPLICATION_JSON))
+              .andExpect(status().isOk());
+
+      double delta = statements("/rs/vote/{id}") - before;
+      assertTrue(delta >= 1 && delta <= 8);
+    }
+
+    @Test
+    public void shouldBuyWithoutStatementPerEvent() throws Exception {
+      saveEvents(5);
+      double before = statements("/rs/buy/{id}");
+
+      performAsync(post("/rs/buy/{id}", rsEventDto.getId())
+              .content("{\"amount\":10,\"rank\":1}")
+              .contentType(MediaType.APPLICATION_JSON))
+              .andExpect(status().isOk());
+
+      double delta = statements("/rs/buy/{id}") - before;
+      assertTrue(delta >= 1 && delta <= 10);
+    }
+
+    private void saveEvents(int count) {
+      for (int i = 0; i < count; i++) {
+        rsEventRepository.save(RsEventDto.builder().user(userDto).eventName("event " + i).keyword("keyword")
+                .voteNum(i + 1).build());
+      }
+    }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+      MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+      return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private double statements(String uri) {
+      DistributionSummary summary = meterRegistry.find("rslist.http.queries").tag("uri", uri).summary();
+      return summary == null ? 0 : summary.totalAmount();
+    }
 }
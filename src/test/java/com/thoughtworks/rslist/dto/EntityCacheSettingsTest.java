@@ -0,0 +1,23 @@
+package com.thoughtworks.rslist.dto;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityCacheSettingsTest {
+  @Test
+  void shouldTurnEntityCacheOffOnlyWhenRankStoreIsReplicated() {
+    Map<String, Object> local = new HashMap<>();
+    new EntityCacheSettings("local").customize(local);
+    Map<String, Object> replicated = new HashMap<>();
+    new EntityCacheSettings("replicated").customize(replicated);
+
+    assertTrue(local.isEmpty());
+    assertEquals(false, replicated.get(AvailableSettings.USE_SECOND_LEVEL_CACHE));
+  }
+}
@@ -0,0 +1,76 @@
+package com.thoughtworks.rslist.dto;
+
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class SecondLevelCacheTest {
+  @Autowired EntityManagerFactory entityManagerFactory;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  void shouldServeLookupsOfSavedEntitiesFromCache() {
+    UserDto userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+    RsEventDto rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().eventName("event name").keyword("keyword").user(userDto).build());
+    statistics.clear();
+
+    userRepository.findById(userDto.getId());
+    rsEventRepository.findById(rsEventDto.getId());
+
+    assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void shouldWriteUpdatesThroughToCache() {
+    UserDto userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+    userDto.setVoteNum(3);
+    userRepository.save(userDto);
+    statistics.clear();
+
+    assertEquals(3, userRepository.findById(userDto.getId()).get().getVoteNum());
+    assertEquals(1, statistics.getSecondLevelCacheHitCount());
+  }
+}
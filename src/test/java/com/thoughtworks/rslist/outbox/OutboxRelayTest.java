@@ -0,0 +1,127 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+import com.thoughtworks.rslist.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class OutboxRelayTest {
+  @Mock OutboxEventRepository outboxEventRepository;
+  @Mock ObjectProvider<OutboxConsumer> consumers;
+  @Mock PlatformTransactionManager transactionManager;
+  MeterRegistry meterRegistry;
+  OutboxRelay outboxRelay;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    when(consumers.orderedStream()).thenReturn(Stream.empty());
+    meterRegistry = new SimpleMeterRegistry();
+    outboxRelay =
+        new OutboxRelay(outboxEventRepository, consumers, transactionManager, meterRegistry, false, 200, 2, 2);
+  }
+
+  @Test
+  void shouldDeliverBatchInOrderThenDeleteIt() {
+    when(outboxEventRepository.lockOldest(any(Pageable.class)))
+        .thenReturn(Arrays.asList(vote(7, 1), vote(8, 2)));
+    List<Long> seen = new ArrayList<>();
+    outboxRelay.register(records -> records.forEach(record -> seen.add(record.getId())));
+
+    assertEquals(2, outboxRelay.relayBatch());
+
+    assertEquals(Arrays.asList(7L, 8L), seen);
+    verify(outboxEventRepository).deleteByIds(Arrays.asList(7L, 8L));
+    assertEquals(2, meterRegistry.counter("rslist.outbox.relayed").count());
+  }
+
+  @Test
+  void shouldKeepDeliveringWhenOneConsumerFails() {
+    when(outboxEventRepository.lockOldest(any(Pageable.class))).thenReturn(Collections.singletonList(vote(3, 1)));
+    List<Long> seen = new ArrayList<>();
+    outboxRelay.register(
+        records -> {
+          throw new IllegalStateException("broken consumer");
+        });
+    outboxRelay.register(records -> records.forEach(record -> seen.add(record.getId())));
+
+    outboxRelay.relayBatch();
+
+    assertEquals(Collections.singletonList(3L), seen);
+    assertEquals(1, meterRegistry.counter("rslist.outbox.consumer.failures").count());
+  }
+
+  @Test
+  void shouldRetryOnlyTheFailedConsumerAndDeleteOnceAllAccepted() {
+    when(outboxEventRepository.lockOldest(any(Pageable.class))).thenReturn(Arrays.asList(vote(3, 1), vote(4, 1)));
+    List<Long> flaky = new ArrayList<>();
+    List<Long> healthy = new ArrayList<>();
+    AtomicBoolean failing = new AtomicBoolean(true);
+    outboxRelay.register(
+        records -> {
+          if (failing.get()) {
+            throw new IllegalStateException("downstream unavailable");
+          }
+          records.forEach(record -> flaky.add(record.getId()));
+        });
+    outboxRelay.register(records -> records.forEach(record -> healthy.add(record.getId())));
+
+    assertEquals(0, outboxRelay.relayBatch());
+    verify(outboxEventRepository, never()).deleteByIds(any());
+
+    failing.set(false);
+    assertEquals(2, outboxRelay.relayBatch());
+
+    assertEquals(Arrays.asList(3L, 4L), flaky);
+    assertEquals(Arrays.asList(3L, 4L), healthy);
+    verify(outboxEventRepository).deleteByIds(Arrays.asList(3L, 4L));
+  }
+
+  @Test
+  void shouldSkipRecordsForConsumerThatKeepsFailing() {
+    when(outboxEventRepository.lockOldest(any(Pageable.class))).thenReturn(Collections.singletonList(vote(3, 1)));
+    outboxRelay.register(
+        records -> {
+          throw new IllegalStateException("broken consumer");
+        });
+
+    assertEquals(0, outboxRelay.relayBatch());
+    assertEquals(1, outboxRelay.relayBatch());
+
+    verify(outboxEventRepository).deleteByIds(Collections.singletonList(3L));
+    assertEquals(2, meterRegistry.counter("rslist.outbox.consumer.failures").count());
+    assertEquals(1, meterRegistry.counter("rslist.outbox.consumer.skipped").count());
+  }
+
+  @Test
+  void shouldNotDeleteWhenOutboxIsEmpty() {
+    when(outboxEventRepository.lockOldest(any(Pageable.class))).thenReturn(Collections.emptyList());
+
+    assertEquals(0, outboxRelay.relayBatch());
+    verify(outboxEventRepository, never()).deleteByIds(any());
+  }
+
+  private OutboxEventDto vote(long id, int rsEventId) {
+    return OutboxEventDto.builder().id(id).type(OutboxEventDto.VOTE).rsEventId(rsEventId).userId(1).voteNum(1).build();
+  }
+}
@@ -0,0 +1,100 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.dto.OutboxEventDto;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The relay's first pass is an hour away, so the rows it would drain stay put during the test.
+@SpringBootTest(properties = "rslist.outbox.poll-interval-ms=3600000")
+class OutboxWriterTest {
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired PlatformTransactionManager transactionManager;
+  @Autowired JdbcTemplate jdbcTemplate;
+  TransactionTemplate transactionTemplate;
+  UserDto userDto;
+  RsEventDto rsEventDto;
+
+  @BeforeEach
+  void setUp() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    userDto =
+        userRepository.save(
+            UserDto.builder()
+                .userName("idolice")
+                .age(19)
+                .email("a@b.com")
+                .gender("female")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+    rsEventDto =
+        rsEventRepository.save(
+            RsEventDto.builder().eventName("event name").keyword("keyword").voteNum(0).user(userDto).build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.update("delete from outbox_event where rs_event_id = ?", rsEventDto.getId());
+    voteRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void shouldWriteOutboxRowWhenVoteCommits() {
+    transactionTemplate.execute(status -> voteRepository.save(vote()));
+
+    assertEquals(1, outboxRows());
+  }
+
+  @Test
+  void shouldWriteOneOutboxRowPerVoteOfABulkCommit() {
+    transactionTemplate.execute(status -> voteRepository.saveAll(Arrays.asList(vote(), vote(), vote())));
+
+    assertEquals(3, outboxRows());
+  }
+
+  @Test
+  void shouldWriteNoOutboxRowWhenVoteRollsBack() {
+    transactionTemplate.execute(
+        status -> {
+          voteRepository.save(vote());
+          status.setRollbackOnly();
+          return null;
+        });
+
+    assertEquals(0, outboxRows());
+    assertEquals(0, voteRepository.count());
+  }
+
+  private VoteDto vote() {
+    return VoteDto.builder().user(userDto).rsEvent(rsEventDto).localDateTime(LocalDateTime.now()).num(1).build();
+  }
+
+  private int outboxRows() {
+    return jdbcTemplate.queryForObject(
+        "select count(*) from outbox_event where rs_event_id = ? and type = ?",
+        Integer.class,
+        rsEventDto.getId(),
+        OutboxEventDto.VOTE);
+  }
+}
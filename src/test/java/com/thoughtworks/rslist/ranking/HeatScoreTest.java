@@ -0,0 +1,51 @@
+package com.thoughtworks.rslist.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeatScoreTest {
+  @Test
+  void shouldHalveVoteWeightEveryHalfLife() {
+    LocalDateTime now = LocalDateTime.of(2026, 10, 1, 12, 0);
+    Double heat = HeatScore.add(null, 4, now.minus(HeatScore.HALF_LIFE), now);
+    heat = HeatScore.add(heat, 1, now, now);
+
+    assertEquals(3.0, HeatScore.weightAt(heat, now), 1e-9);
+    assertEquals(1.5, HeatScore.weightAt(heat, now.plus(HeatScore.HALF_LIFE)), 1e-9);
+  }
+
+  @Test
+  void shouldRankRecentVotesAboveOlderOnes() {
+    LocalDateTime now = LocalDateTime.of(2026, 10, 1, 12, 0);
+    Double old = HeatScore.add(null, 10, now.minusDays(7), now);
+    Double recent = HeatScore.add(null, 1, now, now);
+
+    assertTrue(recent > old);
+    assertNull(HeatScore.add(null, 0, now, now));
+  }
+
+  @Test
+  void shouldCountVotesDatedInTheFutureAsCastNow() {
+    LocalDateTime now = LocalDateTime.of(2026, 10, 1, 12, 0);
+    Double honest = HeatScore.add(null, 1, now, now);
+    Double forged = HeatScore.add(null, 1, now.plusYears(10), now);
+
+    assertEquals(honest, forged);
+    assertEquals(1.0, HeatScore.weightAt(forged, now), 1e-9);
+  }
+
+  @Test
+  void shouldCountVotesOlderThanMaxAgeAsCastAtMaxAge() {
+    LocalDateTime now = LocalDateTime.of(2026, 10, 1, 12, 0);
+    Double atMaxAge = HeatScore.add(null, 1, now.minus(HeatScore.MAX_AGE), now);
+    Double ancient = HeatScore.add(null, 1, LocalDateTime.of(1970, 1, 1, 0, 0), now);
+
+    assertEquals(atMaxAge, ancient);
+    assertTrue(HeatScore.weightAt(ancient, now) < 1e-9);
+  }
+}
@@ -0,0 +1,46 @@
+package com.thoughtworks.rslist.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntMapTest {
+  @Test
+  void shouldReplaceAndRemoveValues() {
+    IntMap<String> map = new IntMap<>(2);
+    map.put(0, "zero");
+    map.put(-5, "minus five");
+    assertNull(map.put(17, "seventeen"));
+
+    assertEquals("seventeen", map.put(17, "17"));
+    assertEquals("zero", map.remove(0));
+    assertNull(map.remove(0));
+    assertEquals(2, map.size());
+    assertEquals("minus five", map.get(-5));
+    assertEquals("17", map.get(17));
+  }
+
+  @Test
+  void shouldMatchHashMapUnderRandomChanges() {
+    IntMap<Integer> map = new IntMap<>();
+    Map<Integer, Integer> expected = new HashMap<>();
+    Random random = new Random(11);
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(500) * 64;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (int key = 0; key < 500 * 64; key += 64) {
+      assertEquals(expected.get(key), map.get(key));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.thoughtworks.rslist.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderStatisticTreapTest {
+  @Test
+  void shouldReturnElementsByPosition() {
+    OrderStatisticTreap<Integer> treap = new OrderStatisticTreap<>(Comparator.naturalOrder());
+    Arrays.asList(50, 10, 40, 20, 30).forEach(treap::insert);
+    treap.remove(40);
+
+    assertEquals(4, treap.size());
+    assertEquals(20, (int) treap.get(1));
+    assertEquals(Arrays.asList(20, 30, 50), treap.range(1, 10));
+  }
+
+  @Test
+  void shouldMatchSortedSetUnderRandomChanges() {
+    OrderStatisticTreap<Integer> treap = new OrderStatisticTreap<>(Comparator.reverseOrder());
+    TreeSet<Integer> expected = new TreeSet<>(Comparator.reverseOrder());
+    Random random = new Random(7);
+    for (int i = 0; i < 5000; i++) {
+      int value = random.nextInt(300);
+      if (random.nextBoolean() && expected.add(value)) {
+        treap.insert(value);
+      } else if (expected.remove(value)) {
+        treap.remove(value);
+      }
+      List<Integer> sorted = new ArrayList<>(expected);
+      assertEquals(sorted.size(), treap.size());
+      if (!sorted.isEmpty()) {
+        int from = random.nextInt(sorted.size());
+        assertEquals(sorted.get(from), treap.get(from));
+        assertEquals(sorted.subList(from, Math.min(sorted.size(), from + 20)), treap.range(from, 20));
+      }
+    }
+  }
+}
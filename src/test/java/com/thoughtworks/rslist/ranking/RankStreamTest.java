@@ -0,0 +1,163 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankStreamTest {
+  @Mock RsEventRepository rsEventRepository;
+  RankingBoard rankingBoard;
+  RankStream rankStream;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    when(rsEventRepository.findAllByIsDeletedEquals(0))
+        .thenReturn(Arrays.asList(event(1, 5), event(2, 3), event(3, 1)));
+    rankingBoard = new RankingBoard(rsEventRepository);
+    rankingBoard.list();
+    rankStream = new RankStream(rankingBoard, 60_000, 10_000, 1_000, 2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    rankStream.stop();
+  }
+
+  @Test
+  void shouldSendEveryChangeAfterTheSnapshotExactlyOnce() throws Exception {
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 200; i++) {
+                rankingBoard.put(RankingBoard.Entry.from(event(i % 3 + 1, i)));
+              }
+            });
+    RecordingEmitter emitter = new RecordingEmitter();
+
+    writer.start();
+    rankStream.subscribe(emitter);
+    writer.join();
+    rankingBoard.put(RankingBoard.Entry.from(event(1, 1_000)));
+    long last = rankingBoard.snapshot().getVersion();
+    await(() -> emitter.lastVersion() == last);
+
+    long expected = ((RankSnapshot) emitter.events.get(0)).getVersion();
+    for (Object event : emitter.events.subList(1, emitter.events.size())) {
+      assertEquals(++expected, ((RankChanges) event).getVersion());
+    }
+    assertEquals(last, expected);
+  }
+
+  @Test
+  void shouldDropSubscriberWhoseSendFails() {
+    RecordingEmitter healthy = new RecordingEmitter();
+    RecordingEmitter failing = new RecordingEmitter();
+    rankStream.subscribe(healthy);
+    rankStream.subscribe(failing);
+    await(() -> rankStream.subscribers() == 2 && failing.events.size() == 1);
+    failing.fail = true;
+
+    rankingBoard.put(RankingBoard.Entry.from(event(3, 9)));
+
+    await(() -> rankStream.subscribers() == 1);
+    await(() -> healthy.lastVersion() == 1);
+    rankingBoard.put(RankingBoard.Entry.from(event(2, 9)));
+    await(() -> healthy.lastVersion() == 2);
+    assertEquals(1, failing.events.size());
+  }
+
+  @Test
+  void shouldDropSubscriberThatFallsBehindWithoutStallingOthers() {
+    rankStream.stop();
+    rankStream = new RankStream(rankingBoard, 60_000, 10_000, 2, 2);
+    RecordingEmitter healthy = new RecordingEmitter();
+    RecordingEmitter stalled = new RecordingEmitter();
+    rankStream.subscribe(healthy);
+    rankStream.subscribe(stalled);
+    await(() -> rankStream.subscribers() == 2 && stalled.events.size() == 1);
+    stalled.block = new CountDownLatch(1);
+
+    for (int i = 0; i < 5; i++) {
+      rankingBoard.put(RankingBoard.Entry.from(event(i % 3 + 1, 10 + i)));
+    }
+
+    await(() -> rankStream.subscribers() == 1);
+    await(() -> healthy.lastVersion() == 5);
+    stalled.block.countDown();
+    await(() -> stalled.completed);
+    assertTrue(stalled.events.size() < 6);
+  }
+
+  private void await(BooleanSupplier condition) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("condition not met in time");
+      }
+      Thread.yield();
+    }
+  }
+
+  private RsEventDto event(int id, int voteNum) {
+    return RsEventDto.builder().id(id).eventName("e" + id).keyword("keyword").voteNum(voteNum).build();
+  }
+
+  // Records the snapshot and change objects it is asked to send, without a servlet response.
+  private static class RecordingEmitter extends SseEmitter {
+    final List<Object> events = new CopyOnWriteArrayList<>();
+    volatile boolean fail;
+    volatile boolean completed;
+    volatile CountDownLatch block;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (fail) {
+        throw new IOException("connection reset");
+      }
+      CountDownLatch latch = block;
+      if (latch != null) {
+        try {
+          latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      builder.build().stream()
+          .map(DataWithMediaType::getData)
+          .filter(data -> data instanceof RankSnapshot || data instanceof RankChanges)
+          .forEach(events::add);
+    }
+
+    @Override
+    public synchronized void complete() {
+      completed = true;
+      super.complete();
+    }
+
+    long lastVersion() {
+      if (events.isEmpty()) {
+        return -1;
+      }
+      Object last = events.get(events.size() - 1);
+      return last instanceof RankChanges ? ((RankChanges) last).getVersion() : ((RankSnapshot) last).getVersion();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankedListCacheTest {
+  @Mock RsEventRepository rsEventRepository;
+  RankingBoard rankingBoard;
+  MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    when(rsEventRepository.findAllByIsDeletedEquals(0))
+        .thenReturn(Collections.singletonList(event(1, "first", 1)));
+    rankingBoard = new RankingBoard(rsEventRepository);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void shouldRebuildOnlyAfterBoardChanges() {
+    RankedListCache cache = new RankedListCache(rankingBoard, meterRegistry, true, 0);
+
+    assertEquals(1, cache.list().size());
+    assertEquals(1, cache.page(1, 5).size());
+    rankingBoard.put(RankingBoard.Entry.from(event(2, "second", 3)));
+    assertEquals("second", cache.page(1, 1).get(0).getEventName());
+
+    assertEquals(2, count("miss"));
+    assertEquals(1, count("hit"));
+    assertEquals(2, meterRegistry.timer("rslist.list.cache.rebuilds").count());
+  }
+
+  @Test
+  void shouldServePreviousListWithinCoalescingWindow() {
+    RankedListCache cache = new RankedListCache(rankingBoard, meterRegistry, true, 60_000);
+
+    cache.list();
+    rankingBoard.put(RankingBoard.Entry.from(event(2, "second", 3)));
+    rankingBoard.put(RankingBoard.Entry.from(event(3, "third", 5)));
+
+    assertEquals(1, cache.list().size());
+    assertEquals(1, count("coalesced"));
+    assertEquals(1, meterRegistry.timer("rslist.list.cache.rebuilds").count());
+  }
+
+  private double count(String result) {
+    return meterRegistry.counter("rslist.list.cache.requests", "result", result).count();
+  }
+
+  private RsEventDto event(int id, String name, int voteNum) {
+    return RsEventDto.builder().id(id).eventName(name).keyword("keyword").voteNum(voteNum).build();
+  }
+}
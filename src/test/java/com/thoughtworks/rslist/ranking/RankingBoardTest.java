@@ -0,0 +1,217 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+class RankingBoardTest {
+  @Mock RsEventRepository rsEventRepository;
+  RankingBoard rankingBoard;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    when(rsEventRepository.findAllByIsDeletedEquals(0))
+        .thenReturn(
+            Arrays.asList(
+                event(1, "a", 5, 0),
+                event(2, "b", 3, 0),
+                event(3, "c", 1, 0),
+                event(4, "d", 0, 2),
+                event(5, "e", 0, 7)));
+    rankingBoard = new RankingBoard(rsEventRepository);
+  }
+
+  @Test
+  void shouldMergeBoughtSlotsIntoVoteOrder() {
+    assertEquals(Arrays.asList("a", "d", "b", "c", "e"), names(rankingBoard.list()));
+    assertEquals(Arrays.asList("d", "b"), names(rankingBoard.page(2, 3)));
+    assertEquals(Arrays.asList("c", "e"), names(rankingBoard.page(4, 10)));
+    verify(rsEventRepository, times(1)).findAllByIsDeletedEquals(0);
+  }
+
+  @Test
+  void shouldReorderWhenEventIsUpdated() {
+    rankingBoard.list();
+    rankingBoard.put(RankingBoard.Entry.from(event(3, "c", 9, 0)));
+    assertEquals(Arrays.asList("c", "d", "a", "b", "e"), names(rankingBoard.list()));
+
+    rankingBoard.put(RankingBoard.Entry.from(event(2, "b", 3, 1)));
+    assertEquals(Arrays.asList("a", "e"), names(rankingBoard.page(3, 4)));
+  }
+
+  @Test
+  void shouldDropEventWhenRemoved() {
+    rankingBoard.list();
+    rankingBoard.remove(4);
+    assertEquals(Arrays.asList("a", "b", "c", "e"), names(rankingBoard.list()));
+  }
+
+  @Test
+  void shouldHandBoughtRankToNextClaimantWhenSlotFrees() {
+    rankingBoard.list();
+    rankingBoard.put(RankingBoard.Entry.from(event(6, "f", 9, 2)));
+    assertEquals(Arrays.asList("f", "d", "a", "b", "c", "e"), names(rankingBoard.list()));
+
+    rankingBoard.remove(4);
+    assertEquals(Arrays.asList("a", "f", "b", "c", "e"), names(rankingBoard.list()));
+  }
+
+  @Test
+  void shouldSlotNewHolderWhateverOrderTheBuyCommitsArriveIn() {
+    rankingBoard.list();
+    rankingBoard.put(RankingBoard.Entry.from(event(3, "c", 1, 7)));
+    assertEquals(Arrays.asList("a", "d", "b", "e", "c"), names(rankingBoard.list()));
+
+    rankingBoard.remove(5);
+    assertEquals(Arrays.asList("a", "d", "b", "c"), names(rankingBoard.list()));
+  }
+
+  @Test
+  void shouldApplyChangesCommittedWhileTheBoardLoads() {
+    List<RsEventDto> stale =
+        Arrays.asList(event(1, "a", 5, 0), event(2, "b", 3, 0), event(3, "c", 1, 0), event(4, "d", 0, 2));
+    RankingBoardSync sync = new RankingBoardSync(null, rankingBoard);
+    PostUpdateEvent update = mock(PostUpdateEvent.class);
+    when(update.getEntity()).thenReturn(event(3, "c", 9, 0));
+    PostDeleteEvent delete = mock(PostDeleteEvent.class);
+    when(delete.getEntity()).thenReturn(event(4, "d", 0, 2));
+    // The commits land on another thread after the load has started reading.
+    when(rsEventRepository.findAllByIsDeletedEquals(0))
+        .thenAnswer(
+            invocation -> {
+              Thread committer =
+                  new Thread(
+                      () -> {
+                        sync.onPostUpdate(update);
+                        sync.onPostDelete(delete);
+                      });
+              committer.start();
+              committer.join();
+              return stale;
+            });
+
+    assertEquals(Arrays.asList("c", "a", "b"), names(rankingBoard.list()));
+
+    rankingBoard.invalidate();
+    assertEquals(Arrays.asList("c", "a", "b"), names(rankingBoard.list()));
+  }
+
+  @Test
+  void shouldOrderUnboughtEventsByHeatAroundBoughtRanks() {
+    rankingBoard.list();
+    rankingBoard.put(RankingBoard.Entry.from(heated(event(3, "c", 1, 0), 9.0)));
+    rankingBoard.put(RankingBoard.Entry.from(heated(event(2, "b", 3, 0), 4.0)));
+
+    assertEquals(Arrays.asList("c", "d", "b", "a", "e"), names(rankingBoard.list(RankOrder.HEAT)));
+    assertEquals(Arrays.asList("d", "b"), names(rankingBoard.page(RankOrder.HEAT, 2, 3)));
+    assertEquals(Arrays.asList("a", "d", "b", "c", "e"), names(rankingBoard.list()));
+  }
+
+  @Test
+  void shouldReportOnlyTheRanksThatMoved() {
+    List<RankChanges> received = new ArrayList<>();
+    rankingBoard.addDeltaListener(received::add);
+    RankSnapshot snapshot = rankingBoard.snapshot();
+
+    rankingBoard.put(RankingBoard.Entry.from(event(3, "c", 9, 0)));
+    rankingBoard.put(RankingBoard.Entry.from(event(2, "b", 3, 1)));
+    rankingBoard.remove(4);
+
+    assertEquals(0, snapshot.getVersion());
+    assertEquals(
+        Arrays.asList(
+            new RankDelta(RankDelta.MOVED, 3, 4, 1, 9, 0),
+            new RankDelta(RankDelta.MOVED, 1, 1, 3, 5, 0),
+            new RankDelta(RankDelta.MOVED, 2, 3, 4, 3, 0)),
+        received.get(0).getDeltas());
+    assertEquals(
+        Arrays.asList(
+            new RankDelta(RankDelta.BOUGHT, 2, 4, 1, 3, 1),
+            new RankDelta(RankDelta.MOVED, 3, 1, 3, 9, 0),
+            new RankDelta(RankDelta.MOVED, 1, 3, 4, 5, 0)),
+        received.get(1).getDeltas());
+    assertEquals(
+        Arrays.asList(
+            new RankDelta(RankDelta.MOVED, 3, 3, 2, 9, 0),
+            new RankDelta(RankDelta.MOVED, 1, 4, 3, 5, 0),
+            new RankDelta(RankDelta.MOVED, 5, 5, 4, 0, 7),
+            new RankDelta(RankDelta.LEFT, 4, 2, 0, 0, 2)),
+        received.get(2).getDeltas());
+    assertEquals(3, rankingBoard.snapshot().getVersion());
+  }
+
+  @Test
+  void shouldKeepSnapshotPlusDeltasEqualToNextSnapshot() {
+    List<RankChanges> received = new ArrayList<>();
+    rankingBoard.addDeltaListener(received::add);
+    Map<Integer, Integer> ranks = ranks(rankingBoard.snapshot());
+    Random random = new Random(42);
+
+    for (int i = 0; i < 500; i++) {
+      int id = random.nextInt(30) + 1;
+      if (random.nextInt(10) == 0) {
+        rankingBoard.remove(id);
+      } else {
+        int boughtRank = random.nextInt(4) == 0 ? random.nextInt(12) + 1 : 0;
+        rankingBoard.put(RankingBoard.Entry.from(event(id, "e" + id, random.nextInt(20), boughtRank)));
+      }
+      RankChanges changes = received.get(received.size() - 1);
+      assertFalse(changes.isResync());
+      for (RankDelta delta : changes.getDeltas()) {
+        if (delta.getTo() == 0) {
+          ranks.remove(delta.getRsEventId());
+        } else {
+          ranks.put(delta.getRsEventId(), delta.getTo());
+        }
+      }
+      assertEquals(ranks(rankingBoard.snapshot()), ranks);
+    }
+  }
+
+  private Map<Integer, Integer> ranks(RankSnapshot snapshot) {
+    Map<Integer, Integer> ranks = new HashMap<>();
+    snapshot.getRsEvents().forEach(rankedEvent -> ranks.put(rankedEvent.getRsEventId(), rankedEvent.getRank()));
+    return ranks;
+  }
+
+  private RsEventDto heated(RsEventDto rsEventDto, double heat) {
+    rsEventDto.setHeat(heat);
+    return rsEventDto;
+  }
+
+  private RsEventDto event(int id, String name, int voteNum, int boughtRank) {
+    return RsEventDto.builder()
+        .id(id)
+        .eventName(name)
+        .keyword("keyword")
+        .voteNum(voteNum)
+        .boughtRank(boughtRank)
+        .build();
+  }
+
+  private List<String> names(List<RsEvent> rsEvents) {
+    return rsEvents.stream().map(RsEvent::getEventName).collect(Collectors.toList());
+  }
+}
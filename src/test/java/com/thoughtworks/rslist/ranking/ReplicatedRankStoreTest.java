@@ -0,0 +1,164 @@
+package com.thoughtworks.rslist.ranking;
+
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.Trade;
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RankDeltaDto;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RankDeltaRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.service.RsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Three nodes on one in-memory H2 database in MySQL mode, each with its own Spring context and
+ * board; the first node to start runs the migrations.
+ */
+class ReplicatedRankStoreTest {
+  List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    nodes.forEach(ConfigurableApplicationContext::close);
+  }
+
+  @Test
+  void shouldConvergeEveryNodeOnTheCommittedRanking() throws InterruptedException {
+    ConfigurableApplicationContext first = start("first");
+    ConfigurableApplicationContext second = start("second");
+    ConfigurableApplicationContext third = start("third");
+    UserDto user =
+        first
+            .getBean(UserRepository.class)
+            .save(
+                UserDto.builder()
+                    .userName("idolice")
+                    .age(19)
+                    .email("a@b.com")
+                    .gender("female")
+                    .phone("18888888888")
+                    .voteNum(10)
+                    .build());
+    RsEventRepository rsEventRepository = first.getBean(RsEventRepository.class);
+    RsEventDto a = rsEventRepository.save(event("a", user));
+    RsEventDto b = rsEventRepository.save(event("b", user));
+    RsEventDto c = rsEventRepository.save(event("c", user));
+    nodes.forEach(node -> node.getBean(RankStore.class).list());
+
+    first.getBean(RsService.class).vote(vote(user, 3), b.getId());
+    second.getBean(RsService.class).vote(vote(user, 2), c.getId());
+    second.getBean(RsService.class).buy(Trade.builder().amount(10).rank(1).build(), a.getId());
+    third.getBean(RsEventRepository.class).save(event("d", user));
+
+    List<String> expected = Arrays.asList("a:0:1", "b:3:0", "c:2:0", "d:0:0");
+    assertEquals(expected, names(new RankingBoard(rsEventRepository).list()));
+    for (ConfigurableApplicationContext node : nodes) {
+      assertTrue(converges(node.getBean(RankStore.class), expected), "node did not converge");
+    }
+  }
+
+  @Test
+  void shouldApplyRowCommittedAfterItsGapWasSkipped() {
+    RankingBoard rankingBoard = mock(RankingBoard.class);
+    RankDeltaRepository rankDeltaRepository = mock(RankDeltaRepository.class);
+    ReplicatedRankStore rankStore =
+        new ReplicatedRankStore(rankingBoard, rankDeltaRepository, null, "first", 20, 500, 0, 3_600_000);
+    when(rankDeltaRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+        .thenReturn(Arrays.asList(delta(1, "a"), delta(3, "c")));
+    when(rankDeltaRepository.findAllById(Collections.singletonList(2L))).thenReturn(Collections.emptyList());
+
+    assertEquals(2, rankStore.poll());
+    verify(rankingBoard, never()).put(argThat(entry -> entry.id == 2));
+
+    when(rankDeltaRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), any())).thenReturn(Collections.emptyList());
+    when(rankDeltaRepository.findAllById(Collections.singletonList(2L)))
+        .thenReturn(Collections.singletonList(delta(2, "b")));
+
+    assertEquals(0, rankStore.poll());
+    verify(rankingBoard).put(argThat(entry -> entry.id == 2));
+    rankStore.poll();
+    verify(rankDeltaRepository, times(2)).findAllById(any());
+  }
+
+  private RankDeltaDto delta(long id, String name) {
+    return RankDeltaDto.builder()
+        .id(id)
+        .nodeId("second")
+        .rsEventId((int) id)
+        .eventName(name)
+        .keyword("keyword")
+        .version(0)
+        .build();
+  }
+
+  private boolean converges(RankStore rankStore, List<String> expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (System.currentTimeMillis() < deadline) {
+      if (expected.equals(names(rankStore.list()))) {
+        return true;
+      }
+      Thread.sleep(20);
+    }
+    return false;
+  }
+
+  private ConfigurableApplicationContext start(String nodeId) {
+    ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(RsListApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:replicated;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                // The Flyway migrations build the schema, with MySQL's table-backed id sequences.
+                "spring.jpa.database-platform=org.hibernate.dialect.MySQL55Dialect",
+                "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "rslist.rank-store.mode=replicated",
+                "rslist.rank-store.node-id=" + nodeId,
+                "rslist.rank-store.poll-interval-ms=20",
+                "rslist.rank-store.gap-timeout-ms=200")
+            .run();
+    nodes.add(context);
+    return context;
+  }
+
+  private RsEventDto event(String name, UserDto user) {
+    return RsEventDto.builder().eventName(name).keyword("keyword").user(user).build();
+  }
+
+  private Vote vote(UserDto user, int voteNum) {
+    return Vote.builder().userId(user.getId()).voteNum(voteNum).time(LocalDateTime.now()).build();
+  }
+
+  private List<String> names(List<RsEvent> rsEvents) {
+    return rsEvents.stream()
+        .map(rsEvent -> rsEvent.getEventName() + ":" + rsEvent.getVoteNum() + ":" + rsEvent.getBoughtRank())
+        .collect(Collectors.toList());
+  }
+}
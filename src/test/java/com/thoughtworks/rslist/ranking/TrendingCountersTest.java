@@ -0,0 +1,116 @@
+package com.thoughtworks.rslist.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrendingCountersTest {
+  static final long MINUTE = 60_000;
+
+  AtomicLong now = new AtomicLong(1_000 * MINUTE);
+  TrendingCounters counters = new TrendingCounters(10, 10, now::get);
+
+  @Test
+  void shouldCountVotesWithinTheRequestedMinutes() {
+    counters.record(1, 5);
+    now.addAndGet(3 * MINUTE);
+    counters.record(2, 2);
+    counters.record(1, 1);
+
+    assertEquals(6, votesOf(1, 10));
+    assertEquals(1, votesOf(1, 2));
+    assertEquals(2, votesOf(2, 1));
+  }
+
+  @Test
+  void shouldDropVotesOlderThanTheWindow() {
+    counters.record(1, 5);
+    now.addAndGet(4 * MINUTE);
+    counters.record(1, 1);
+    now.addAndGet(7 * MINUTE);
+
+    assertEquals(1, votesOf(1, 10));
+    counters.record(1, 2);
+    assertEquals(3, votesOf(1, 10));
+
+    now.addAndGet(10 * MINUTE);
+    assertEquals(0, counters.top(10, 10).size());
+    assertEquals(0, counters.size());
+  }
+
+  @Test
+  void shouldReuseSlotsAfterALongGap() {
+    counters.record(1, 5);
+    now.addAndGet(25 * MINUTE);
+    counters.record(1, 1);
+
+    assertEquals(1, votesOf(1, 10));
+  }
+
+  @Test
+  void shouldKeepOnlyTheTopK() {
+    for (int id = 1; id <= 100; id++) {
+      counters.record(id, id % 37);
+    }
+
+    List<Integer> top = counters.top(3, 10).stream().map(trend -> trend.rsEventId).collect(Collectors.toList());
+    assertEquals(3, top.size());
+    assertEquals(36, (int) top.get(0));
+    assertEquals(73, (int) top.get(1));
+    assertEquals(35, (int) top.get(2));
+  }
+
+  @Test
+  void shouldDropIdleEventsWhenVotesMoveOn() {
+    counters.record(1, 5);
+    now.addAndGet(11 * MINUTE);
+    counters.record(2, 1);
+
+    assertEquals(1, counters.size());
+  }
+
+  @Test
+  void shouldNotLoseVotesRecordedWhileIdleEventIsEvicted() throws InterruptedException {
+    counters.record(1, 5);
+    now.addAndGet(11 * MINUTE);
+    List<Thread> voters = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      voters.add(
+          new Thread(
+              () -> {
+                for (int i = 0; i < 1_000; i++) {
+                  counters.record(1, 1);
+                }
+              }));
+    }
+    Thread reader =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 1_000; i++) {
+                counters.top(10, 10);
+              }
+            });
+
+    voters.forEach(Thread::start);
+    reader.start();
+    for (Thread voter : voters) {
+      voter.join();
+    }
+    reader.join();
+
+    assertEquals(4_000, votesOf(1, 10));
+  }
+
+  private long votesOf(int rsEventId, int minutes) {
+    return counters.top(100, minutes).stream()
+        .filter(trend -> trend.rsEventId == rsEventId)
+        .mapToLong(trend -> trend.votes)
+        .findFirst()
+        .orElse(0);
+  }
+}
@@ -0,0 +1,39 @@
+package com.thoughtworks.rslist.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VoteIndexTest {
+  @Test
+  void shouldOrderByVotesThenId() {
+    VoteIndex index = new VoteIndex();
+    for (int id = 20; id >= 1; id--) {
+      index.insert(id, id % 3);
+    }
+
+    assertEquals(20, index.size());
+    assertEquals(2, index.idAt(0));
+    assertEquals(5, index.idAt(1));
+    assertEquals(2, index.voteNumAt(0));
+    assertEquals(18, index.idAt(19));
+    assertEquals(6, index.indexOf(20, 2));
+    assertTrue(index.indexOf(21, 2) < 0);
+  }
+
+  @Test
+  void shouldRemoveOnlyTheMatchingEvent() {
+    VoteIndex index = new VoteIndex();
+    index.insert(1, 5);
+    index.insert(2, 5);
+    index.insert(3, 1);
+
+    assertFalse(index.remove(1, 4));
+    assertTrue(index.remove(1, 5));
+    assertEquals(2, index.size());
+    assertEquals(2, index.idAt(0));
+    assertEquals(3, index.idAt(1));
+  }
+}
@@ -0,0 +1,68 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.exception.ServiceBusyException;
+import com.thoughtworks.rslist.metrics.QueryCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestExecutorTest {
+  RequestExecutor requestExecutor = new RequestExecutor(new QueryCounter(), 1, 1, false);
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    requestExecutor.stop();
+  }
+
+  @Test
+  void shouldShedRequestsBeyondThreadsAndQueue() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Integer> running = requestExecutor.submit(() -> await(release, 1));
+    CompletableFuture<Integer> queued = requestExecutor.submit(() -> 2);
+
+    assertThrows(ServiceBusyException.class, () -> requestExecutor.submit(() -> 3));
+
+    release.countDown();
+    assertEquals(1, running.get(5, TimeUnit.SECONDS));
+    assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+    assertEquals(4, requestExecutor.submit(() -> 4).get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldRunTasksWhenVirtualThreadsAreRequested() throws Exception {
+    RequestExecutor virtual = new RequestExecutor(new QueryCounter(), 1, 0, true);
+    try {
+      assertEquals(1, virtual.submit(() -> 1).get(5, TimeUnit.SECONDS));
+    } finally {
+      virtual.stop();
+    }
+  }
+
+  @Test
+  void shouldCountTaskStatementsTowardsSubmitter() throws Exception {
+    QueryCounter queryCounter = new QueryCounter();
+    RequestExecutor counted = new RequestExecutor(queryCounter, 1, 0, false);
+    try {
+      queryCounter.start();
+      counted.submit(() -> queryCounter.inspect("select 1")).get(5, TimeUnit.SECONDS);
+      assertEquals(1, queryCounter.stop());
+    } finally {
+      counted.stop();
+    }
+  }
+
+  private int await(CountDownLatch latch, int value) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return value;
+  }
+}
@@ -0,0 +1,110 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.TradeRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class RsServiceConcurrencyTest {
+  private static final int USERS = 8;
+  private static final int VOTES_PER_USER = 10;
+  private static final int THREADS = 16;
+
+  @Autowired RsService rsService;
+  @Autowired UserRepository userRepository;
+  @Autowired RsEventRepository rsEventRepository;
+  @Autowired VoteRepository voteRepository;
+  @Autowired TradeRepository tradeRepository;
+
+  @BeforeEach
+  void setUp() {
+    voteRepository.deleteAll();
+    tradeRepository.deleteAll();
+    rsEventRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void shouldNotLoseVotesUnderConcurrentLoad() throws Exception {
+    List<UserDto> users = new ArrayList<>();
+    for (int i = 0; i < USERS; i++) {
+      users.add(
+          userRepository.save(
+              UserDto.builder()
+                  .userName("user" + i)
+                  .gender("female")
+                  .age(20)
+                  .email("a@b.com")
+                  .phone("18888888888")
+                  .voteNum(VOTES_PER_USER)
+                  .build()));
+    }
+    RsEventDto hot =
+        rsEventRepository.save(
+            RsEventDto.builder().eventName("hot").keyword("keyword").user(users.get(0)).build());
+    RsEventDto cold =
+        rsEventRepository.save(
+            RsEventDto.builder().eventName("cold").keyword("keyword").user(users.get(0)).build());
+
+    // Every user tries to spend one more vote than they own, split across two events.
+    List<Callable<Boolean>> attempts = new ArrayList<>();
+    for (UserDto user : users) {
+      for (int i = 0; i <= VOTES_PER_USER; i++) {
+        int rsEventId = i % 2 == 0 ? hot.getId() : cold.getId();
+        attempts.add(
+            () -> {
+              try {
+                rsService.vote(
+                    Vote.builder().userId(user.getId()).voteNum(1).time(LocalDateTime.now()).build(),
+                    rsEventId);
+                return true;
+              } catch (RuntimeException e) {
+                return false;
+              }
+            });
+      }
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    AtomicInteger accepted = new AtomicInteger();
+    try {
+      for (Future<Boolean> result : executor.invokeAll(attempts)) {
+        if (result.get()) {
+          accepted.incrementAndGet();
+        }
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    int total = USERS * VOTES_PER_USER;
+    assertEquals(total, accepted.get());
+    assertEquals(total, voteRepository.findAll().size());
+    int hotVotes = rsEventRepository.findById(hot.getId()).get().getVoteNum();
+    int coldVotes = rsEventRepository.findById(cold.getId()).get().getVoteNum();
+    assertEquals(total, hotVotes + coldVotes);
+    for (UserDto user : users) {
+      assertEquals(0, userRepository.findById(user.getId()).get().getVoteNum());
+    }
+  }
+}
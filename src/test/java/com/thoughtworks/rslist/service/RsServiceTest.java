@@ -1,29 +1,50 @@
 package com.thoughtworks.rslist.service;
 
+import com.thoughtworks.rslist.domain.ItemResult;
 import com.thoughtworks.rslist.domain.RsEvent;
 import com.thoughtworks.rslist.domain.Trade;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RankHolderDto;
 import com.thoughtworks.rslist.dto.RsEventDto;
 import com.thoughtworks.rslist.dto.TradeDto;
 import com.thoughtworks.rslist.dto.UserDto;
 import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.exception.AmountNotEnoughException;
+import com.thoughtworks.rslist.exception.RequestNotValidException;
+import com.thoughtworks.rslist.ranking.RankedListCache;
+import com.thoughtworks.rslist.ranking.RankingBoard;
+import com.thoughtworks.rslist.ranking.TrendingCounters;
+import com.thoughtworks.rslist.repository.OffsetLimitRequest;
+import com.thoughtworks.rslist.repository.RankHolderRepository;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.TradeRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -35,13 +56,24 @@ class RsServiceTest {
   @Mock UserRepository userRepository;
   @Mock VoteRepository voteRepository;
   @Mock TradeRepository tradeRepository;
+  @Mock RankHolderRepository rankHolderRepository;
+  @Mock VotePipeline votePipeline;
+  @Mock PlatformTransactionManager transactionManager;
+  SimpleMeterRegistry meterRegistry;
   LocalDateTime localDateTime;
   Vote vote;
 
   @BeforeEach
   void setUp() {
     initMocks(this);
-    rsService = new RsService(rsEventRepository, userRepository, voteRepository,tradeRepository);
+    StripedLocks stripedLocks = new StripedLocks(16);
+    RankingBoard rankingBoard = new RankingBoard(rsEventRepository);
+    meterRegistry = new SimpleMeterRegistry();
+    rsService = new RsService(rsEventRepository, userRepository, voteRepository, tradeRepository,
+            rankingBoard, new RankedListCache(rankingBoard, meterRegistry, false, 0), new TrendingCounters(60, 60),
+            votePipeline, stripedLocks,
+            new BidBook(rsEventRepository, tradeRepository, rankHolderRepository, stripedLocks, transactionManager, meterRegistry, 100),
+            transactionManager, meterRegistry);
     localDateTime = LocalDateTime.now();
     vote = Vote.builder().voteNum(2).rsEventId(1).time(localDateTime).userId(1).build();
   }
@@ -84,6 +116,17 @@ class RsServiceTest {
                 .build());
     verify(userRepository).save(userDto);
     verify(rsEventRepository).save(rsEventDto);
+    assertEquals(1, meterRegistry.counter("rslist.votes.applied").count());
+  }
+
+  @Test
+  void shouldHandVoteToPipelineWhenWriteBehindEnabled() {
+    when(votePipeline.isEnabled()).thenReturn(true);
+
+    rsService.vote(vote, 1);
+
+    verify(votePipeline).submit(vote, 1);
+    verify(voteRepository, never()).save(any());
   }
 
   @Test
@@ -135,4 +178,189 @@ class RsServiceTest {
     verify(tradeRepository)
             .save(tradeDto);
   }
+
+  @Test
+  void shouldReadBidStateBeforeTheLocksInsideATransaction() {
+    RsEventDto bidder = RsEventDto.builder().id(1).eventName("bidder").keyword("keyword").build();
+    when(rsEventRepository.findById(1)).thenReturn(Optional.of(bidder));
+
+    rsService.buy(Trade.builder().amount(10).rank(1).build(), 1);
+
+    InOrder inOrder = inOrder(transactionManager, rankHolderRepository, rsEventRepository);
+    inOrder.verify(transactionManager).getTransaction(any());
+    inOrder.verify(rsEventRepository).findById(1);
+    inOrder.verify(rankHolderRepository).findById(1);
+    inOrder.verify(transactionManager).commit(any());
+  }
+
+  @Test
+  void shouldRejectBidOnUnknownEventOrRankBeforeReadingTheRank() {
+    when(rsEventRepository.findById(1)).thenReturn(Optional.empty());
+
+    assertThrows(
+        RequestNotValidException.class,
+        () -> rsService.buy(Trade.builder().amount(10).rank(1).build(), 1));
+    assertThrows(
+        RequestNotValidException.class,
+        () -> rsService.buy(Trade.builder().amount(10).rank(101).build(), 2));
+    verify(rankHolderRepository, never()).findById(any());
+    verify(rsEventRepository, never()).findById(2);
+  }
+
+  @Test
+  void shouldRejectBidWhenAmountIsNotMoreThanCurrentHolder() {
+    RsEventDto holder = RsEventDto.builder().id(5).eventName("holder").keyword("keyword").boughtRank(1).build();
+    RsEventDto bidder = RsEventDto.builder().id(1).eventName("bidder").keyword("keyword").build();
+    when(rankHolderRepository.findById(1))
+        .thenReturn(Optional.of(RankHolderDto.builder().rank(1).amount(10).rsEvent(holder).build()));
+    when(rsEventRepository.findById(1)).thenReturn(Optional.of(bidder));
+
+    assertThrows(
+        AmountNotEnoughException.class,
+        () -> rsService.buy(Trade.builder().amount(10).rank(1).build(), 1));
+    verify(tradeRepository, never()).save(any());
+    assertEquals(1, meterRegistry.counter("rslist.bids", "result", "lost").count());
+  }
+
+  @Test
+  void shouldLetHolderRebidItsRankAtAnyAmount() {
+    RsEventDto holder = RsEventDto.builder().id(5).eventName("holder").keyword("keyword").boughtRank(1).build();
+    when(rankHolderRepository.findById(1))
+        .thenReturn(Optional.of(RankHolderDto.builder().rank(1).amount(10).rsEvent(holder).build()));
+    when(rsEventRepository.findById(5)).thenReturn(Optional.of(holder));
+
+    rsService.buy(Trade.builder().amount(6).rank(1).build(), 5);
+
+    assertEquals(0, holder.getIsDeleted());
+    verify(tradeRepository).save(TradeDto.builder().amount(6).rank(1).rsEventDto(holder).build());
+    assertEquals(1, meterRegistry.counter("rslist.bids", "result", "won").count());
+  }
+
+  @Test
+  void shouldReplacePreviousHolderWhenOutbid() {
+    RsEventDto holder = RsEventDto.builder().id(5).eventName("holder").keyword("keyword").boughtRank(1).build();
+    RsEventDto bidder = RsEventDto.builder().id(1).eventName("bidder").keyword("keyword").build();
+    when(rankHolderRepository.findById(1))
+        .thenReturn(Optional.of(RankHolderDto.builder().rank(1).amount(10).rsEvent(holder).build()));
+    when(rsEventRepository.findById(1)).thenReturn(Optional.of(bidder));
+    when(rsEventRepository.findById(5)).thenReturn(Optional.of(holder));
+
+    rsService.buy(Trade.builder().amount(20).rank(1).build(), 1);
+
+    assertEquals(1, holder.getIsDeleted());
+    assertEquals(1, bidder.getBoughtRank());
+    verify(rsEventRepository).save(holder);
+    verify(tradeRepository).save(TradeDto.builder().amount(20).rank(1).rsEventDto(bidder).build());
+    assertEquals(1, meterRegistry.counter("rslist.bids", "result", "won").count());
+  }
+
+  @Test
+  void shouldGetRsListBetweenFromRepositoryWindow() {
+    RsEventDto first = RsEventDto.builder().id(1).eventName("first").keyword("keyword").voteNum(5).build();
+    RsEventDto second = RsEventDto.builder().id(2).eventName("second").keyword("keyword").voteNum(3).build();
+    RsEventDto bought = RsEventDto.builder().id(3).eventName("bought").keyword("keyword").boughtRank(2).build();
+    when(rsEventRepository.findBoughtRanks()).thenReturn(Collections.singletonList(2));
+    when(rsEventRepository.countByIsDeletedEqualsAndBoughtRankEquals(0, 0)).thenReturn(5L);
+    when(rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankIn(eq(0), any()))
+        .thenReturn(Collections.singletonList(bought));
+    when(rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(eq(0), eq(0), any()))
+        .thenReturn(Arrays.asList(first, second));
+
+    List<RsEvent> rsEvents = rsService.getList(1, 3);
+
+    assertEquals(3, rsEvents.size());
+    assertEquals("first", rsEvents.get(0).getEventName());
+    assertEquals("bought", rsEvents.get(1).getEventName());
+    assertEquals("second", rsEvents.get(2).getEventName());
+    verify(rsEventRepository)
+        .findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(
+            0, 0, new OffsetLimitRequest(0, 2));
+  }
+
+  @Test
+  void shouldServeWindowFromRepositoryUntilAFullListLoadsTheRankStore() {
+    RankingBoard rankingBoard = new RankingBoard(rsEventRepository);
+    StripedLocks stripedLocks = new StripedLocks(16);
+    rsService = new RsService(rsEventRepository, userRepository, voteRepository, tradeRepository,
+            rankingBoard, new RankedListCache(rankingBoard, meterRegistry, true, 0), new TrendingCounters(60, 60),
+            votePipeline, stripedLocks,
+            new BidBook(rsEventRepository, tradeRepository, rankHolderRepository, stripedLocks, transactionManager, meterRegistry, 100),
+            transactionManager, meterRegistry);
+    RsEventDto first = RsEventDto.builder().id(1).eventName("first").keyword("keyword").voteNum(5).build();
+    RsEventDto second = RsEventDto.builder().id(2).eventName("second").keyword("keyword").voteNum(3).build();
+    when(rsEventRepository.findBoughtRanks()).thenReturn(Collections.emptyList());
+    when(rsEventRepository.countByIsDeletedEqualsAndBoughtRankEquals(0, 0)).thenReturn(2L);
+    when(rsEventRepository.findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(eq(0), eq(0), any()))
+        .thenReturn(Collections.singletonList(second));
+    when(rsEventRepository.findAllByIsDeletedEquals(0)).thenReturn(Arrays.asList(first, second));
+
+    assertEquals("second", rsService.getList(2, 2).get(0).getEventName());
+    verify(rsEventRepository, never()).findAllByIsDeletedEquals(0);
+
+    rsService.getList();
+    assertEquals("second", rsService.getList(2, 2).get(0).getEventName());
+    verify(rsEventRepository, times(1)).findAllByIsDeletedEqualsAndBoughtRankEqualsOrderByVoteNumDescIdAsc(
+        eq(0), eq(0), any());
+  }
+
+  @Test
+  void shouldLayOutSharedBoughtRankLikeTheRankStore() {
+    RsEventDto first = RsEventDto.builder().id(1).eventName("first").keyword("keyword").voteNum(5).build();
+    RsEventDto second = RsEventDto.builder().id(2).eventName("second").keyword("keyword").voteNum(3).build();
+    RsEventDto bought = RsEventDto.builder().id(3).eventName("bought").keyword("keyword").boughtRank(2).build();
+    RsEventDto rival =
+        RsEventDto.builder().id(4).eventName("rival").keyword("keyword").voteNum(9).boughtRank(2).build();
+    when(rsEventRepository.findBoughtRanks()).thenReturn(Arrays.asList(2, 2));
+    when(rsEventRepository.findAllByIsDeletedEquals(0)).thenReturn(Arrays.asList(first, second, bought, rival));
+
+    List<RsEvent> rsEvents = rsService.getList(1, 3);
+
+    assertEquals(
+        Arrays.asList("rival", "bought", "first"),
+        rsEvents.stream().map(RsEvent::getEventName).collect(Collectors.toList()));
+    verify(rsEventRepository, never()).findAllByIsDeletedEqualsAndBoughtRankIn(eq(0), any());
+  }
+
+  @Test
+  void shouldReportNullVoteAsFailedItem() {
+    UserDto userDto = UserDto.builder().userName("xiaoli").id(1).voteNum(10).build();
+    RsEventDto rsEventDto = RsEventDto.builder().eventName("event name").id(1).voteNum(0).user(userDto).build();
+    when(userRepository.findAllById(any())).thenReturn(Collections.singletonList(userDto));
+    when(rsEventRepository.findAllById(any())).thenReturn(Collections.singletonList(rsEventDto));
+
+    List<ItemResult> results = rsService.voteAll(Arrays.asList(vote, null));
+
+    assertEquals(Arrays.asList(ItemResult.ok(0), ItemResult.failed(1, "item is null")), results);
+    assertEquals(8, userDto.getVoteNum());
+
+    when(votePipeline.isEnabled()).thenReturn(true);
+    results = rsService.voteAll(Arrays.asList(null, vote));
+
+    assertEquals(Arrays.asList(ItemResult.failed(0, "item is null"), ItemResult.ok(1)), results);
+  }
+
+  @Test
+  void shouldFailOnlyTheChunkThatKeepsConflicting() {
+    UserDto userDto = UserDto.builder().userName("xiaoli").id(1).voteNum(10_000).build();
+    RsEventDto rsEventDto = RsEventDto.builder().eventName("event name").id(1).voteNum(0).user(userDto).build();
+    when(userRepository.findAllById(any())).thenReturn(Collections.singletonList(userDto));
+    when(rsEventRepository.findAllById(any())).thenReturn(Collections.singletonList(rsEventDto));
+    OptimisticLockingFailureException conflict = new OptimisticLockingFailureException("conflict");
+    when(rsEventRepository.saveAll(any()))
+        .thenThrow(conflict, conflict, conflict)
+        .thenReturn(Collections.emptyList());
+    List<Vote> votes = new ArrayList<>();
+    for (int i = 0; i <= RsService.BULK_VOTE_CHUNK; i++) {
+      votes.add(Vote.builder().voteNum(1).rsEventId(1).time(localDateTime).userId(1).build());
+    }
+
+    List<ItemResult> results = rsService.voteAll(votes);
+
+    assertEquals(votes.size(), results.size());
+    for (int i = 0; i < RsService.BULK_VOTE_CHUNK; i++) {
+      assertEquals(ItemResult.failed(i, "vote conflict"), results.get(i));
+    }
+    assertEquals(ItemResult.ok(RsService.BULK_VOTE_CHUNK), results.get(RsService.BULK_VOTE_CHUNK));
+    assertEquals(1, meterRegistry.counter("rslist.votes.applied").count());
+  }
 }
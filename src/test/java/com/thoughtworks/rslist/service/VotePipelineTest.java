@@ -0,0 +1,234 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.dto.RsEventDto;
+import com.thoughtworks.rslist.dto.UserDto;
+import com.thoughtworks.rslist.dto.VoteDeadLetterDto;
+import com.thoughtworks.rslist.dto.VoteDto;
+import com.thoughtworks.rslist.exception.ServiceBusyException;
+import com.thoughtworks.rslist.ranking.TrendingCounters;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteDeadLetterRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+@SuppressWarnings("unchecked")
+class VotePipelineTest {
+  @Mock RsEventRepository rsEventRepository;
+  @Mock UserRepository userRepository;
+  @Mock VoteRepository voteRepository;
+  @Mock VoteDeadLetterRepository voteDeadLetterRepository;
+  @Mock PlatformTransactionManager transactionManager;
+  SimpleMeterRegistry meterRegistry;
+  TrendingCounters trendingCounters;
+  UserDto user;
+  RsEventDto rsEvent;
+  VotePipeline votePipeline;
+
+  @BeforeEach
+  void setUp() {
+    initMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    trendingCounters = new TrendingCounters(60, 60);
+    user = UserDto.builder().id(1).voteNum(10).build();
+    rsEvent = RsEventDto.builder().id(1).eventName("event").keyword("keyword").voteNum(0).build();
+    when(rsEventRepository.existsById(anyInt())).thenReturn(true);
+    when(userRepository.findById(1)).thenReturn(Optional.of(user));
+    // Each transaction reads fresh copies and only saveAll writes them back, as a rollback would leave them.
+    when(userRepository.findAllById(any()))
+        .thenAnswer(invocation -> Collections.singletonList(UserDto.builder().id(1).voteNum(user.getVoteNum()).build()));
+    when(rsEventRepository.findAllById(any()))
+        .thenAnswer(
+            invocation -> Collections.singletonList(RsEventDto.builder().id(1).voteNum(rsEvent.getVoteNum()).build()));
+    doAnswer(invocation -> {
+          ((Iterable<UserDto>) invocation.getArgument(0)).forEach(saved -> user.setVoteNum(saved.getVoteNum()));
+          return invocation.getArgument(0);
+        })
+        .when(userRepository).saveAll(any());
+    doAnswer(invocation -> {
+          ((Iterable<RsEventDto>) invocation.getArgument(0)).forEach(saved -> rsEvent.setVoteNum(saved.getVoteNum()));
+          return invocation.getArgument(0);
+        })
+        .when(rsEventRepository).saveAll(any());
+    votePipeline = pipeline(10, 3);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    votePipeline.stop();
+  }
+
+  @Test
+  void shouldWriteCoalescedBatchInOneTransaction() {
+    votePipeline.submit(vote(2), 1);
+    votePipeline.submit(vote(3), 1);
+    votePipeline.flush();
+
+    ArgumentCaptor<List<VoteDto>> votes = ArgumentCaptor.forClass(List.class);
+    verify(voteRepository).saveAll(votes.capture());
+    assertEquals(2, votes.getValue().size());
+    verify(userRepository, times(1)).saveAll(any());
+    verify(rsEventRepository, times(1)).saveAll(any());
+    verify(transactionManager, times(1)).commit(any());
+    assertEquals(5, user.getVoteNum());
+    assertEquals(5, rsEvent.getVoteNum());
+    assertEquals(2, meterRegistry.counter("rslist.votes.applied").count());
+  }
+
+  @Test
+  void shouldNotReserveMoreThanTheBalance() {
+    votePipeline.submit(vote(6), 1);
+
+    assertThrows(RuntimeException.class, () -> votePipeline.submit(vote(5), 1));
+  }
+
+  @Test
+  void shouldSeeBalanceSpentOutsideThePipeline() {
+    votePipeline.submit(vote(1), 1);
+    votePipeline.flush();
+    user.setVoteNum(0);
+
+    assertThrows(RuntimeException.class, () -> votePipeline.submit(vote(1), 1));
+  }
+
+  @Test
+  void shouldRejectWithBusyWhenQueueIsFullAndReleaseTheReservation() {
+    votePipeline.stop();
+    votePipeline = pipeline(1, 3);
+    votePipeline.submit(vote(4), 1);
+
+    assertThrows(ServiceBusyException.class, () -> votePipeline.submit(vote(6), 1));
+    votePipeline.flush();
+    votePipeline.submit(vote(6), 1);
+  }
+
+  @Test
+  void shouldRetryFailedBatchBeforeNewerVotes() {
+    doThrow(new RuntimeException("database down")).doAnswer(invocation -> invocation.getArgument(0))
+        .when(voteRepository).saveAll(any());
+    votePipeline.submit(vote(2), 1);
+    votePipeline.flush();
+    assertEquals(10, user.getVoteNum());
+
+    votePipeline.flush();
+    assertEquals(8, user.getVoteNum());
+    verify(voteDeadLetterRepository, never()).save(any());
+    assertEquals(1, meterRegistry.counter("rslist.votes.flush.failures").count());
+  }
+
+  @Test
+  void shouldParkVotesThatKeepFailing() {
+    doThrow(new RuntimeException("bad row")).when(voteRepository).saveAll(any());
+    votePipeline.submit(vote(2), 1);
+    for (int i = 0; i < 3; i++) {
+      votePipeline.flush();
+    }
+
+    ArgumentCaptor<VoteDeadLetterDto> deadLetter = ArgumentCaptor.forClass(VoteDeadLetterDto.class);
+    verify(voteDeadLetterRepository).save(deadLetter.capture());
+    assertEquals(2, deadLetter.getValue().getVoteNum());
+    assertEquals(1, meterRegistry.counter("rslist.votes.parked").count());
+    votePipeline.submit(vote(10), 1);
+  }
+
+  @Test
+  void shouldParkVoteWhenBalanceWasSpentBeforeTheFlush() {
+    votePipeline.submit(vote(3), 1);
+    user.setVoteNum(1);
+    List<VoteDeadLetterDto> parked = new ArrayList<>();
+    doAnswer(invocation -> {
+          ((Iterable<VoteDeadLetterDto>) invocation.getArgument(0)).forEach(parked::add);
+          return invocation.getArgument(0);
+        })
+        .when(voteDeadLetterRepository).saveAll(any());
+
+    votePipeline.flush();
+
+    assertEquals(1, user.getVoteNum());
+    assertEquals(1, parked.size());
+    assertEquals("vote not enough", parked.get(0).getReason());
+  }
+
+  @Test
+  void shouldCountTrendingVotesOnlyOnceWritten() {
+    doThrow(new RuntimeException("database down")).doAnswer(invocation -> invocation.getArgument(0))
+        .when(voteRepository).saveAll(any());
+    votePipeline.submit(vote(2), 1);
+    assertEquals(0, trendingCounters.top(10, 60).size());
+
+    votePipeline.flush();
+    assertEquals(0, trendingCounters.top(10, 60).size());
+
+    votePipeline.flush();
+    assertEquals(2, trendingCounters.top(10, 60).get(0).votes);
+  }
+
+  @Test
+  void shouldNotCountParkedVotesAsTrending() {
+    votePipeline.submit(vote(3), 1);
+    user.setVoteNum(1);
+
+    votePipeline.flush();
+
+    assertEquals(0, trendingCounters.top(10, 60).size());
+  }
+
+  @Test
+  void shouldFlushOnShutdownAndTurnLaterVotesAway() throws InterruptedException {
+    votePipeline.submit(vote(2), 1);
+    votePipeline.stop();
+
+    assertEquals(8, user.getVoteNum());
+    assertThrows(ServiceBusyException.class, () -> votePipeline.submit(vote(1), 1));
+  }
+
+  private VotePipeline pipeline(int queueCapacity, int maxAttempts) {
+    VotePipeline pipeline =
+        new VotePipeline(
+            rsEventRepository,
+            userRepository,
+            voteRepository,
+            voteDeadLetterRepository,
+            new StripedLocks(16),
+            trendingCounters,
+            transactionManager,
+            meterRegistry,
+            true,
+            60_000,
+            100,
+            queueCapacity,
+            0,
+            maxAttempts);
+    pipeline.start();
+    return pipeline;
+  }
+
+  private Vote vote(int voteNum) {
+    return Vote.builder().userId(1).voteNum(voteNum).time(LocalDateTime.now()).build();
+  }
+}